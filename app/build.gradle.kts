@@ -1,3 +1,9 @@
+import java.awt.RenderingHints
+import java.awt.image.BufferedImage
+import javax.imageio.IIOImage
+import javax.imageio.ImageIO
+import javax.imageio.ImageWriteParam
+
 plugins {
     alias(libs.plugins.android.application)
     alias(libs.plugins.kotlin.android)
@@ -36,6 +42,20 @@ android {
     }
     buildFeatures {
         compose = true
+        buildConfig = true
+    }
+    testOptions {
+        // Robolectric tests inflate the real layouts and open raw resources
+        unitTests {
+            isIncludeAndroidResources = true
+            all {
+                // GameFlowTest reports the costs it measured against game-budgets.properties here
+                it.systemProperty(
+                    "gameBudgets.measuredFile",
+                    layout.buildDirectory.file("reports/game-budgets/measured.properties").get().asFile.path
+                )
+            }
+        }
     }
 }
 
@@ -58,12 +78,220 @@ dependencies {
     implementation(libs.androidx.appcompat)
     implementation(libs.androidx.cardview)
     implementation(libs.material)
+    implementation(libs.androidx.core.splashscreen)
+    implementation(project(":core"))
     testImplementation(libs.junit)
+    testImplementation(libs.robolectric)
+    testImplementation(platform(libs.androidx.compose.bom))
+    testImplementation(libs.androidx.ui.test.junit4)
+    // Registers the empty activity createComposeRule() hosts its content in
+    testImplementation(libs.androidx.ui.test.manifest)
     androidTestImplementation(libs.androidx.junit)
     androidTestImplementation(libs.androidx.espresso.core)
-    androidTestImplementation(platform(libs.androidx.compose.bom))
-    androidTestImplementation(libs.androidx.ui.test.junit4)
     debugImplementation(libs.androidx.ui.tooling)
     debugImplementation(libs.androidx.ui.test.manifest)
 }
 
+
+/**
+ * Transcodes the source art in src/art into generated resources: bitmaps are
+ * resized per density to the size they are displayed at (WebP when cwebp is on
+ * the PATH, JPEG/PNG otherwise), the launcher icon is generated as an adaptive icon
+ * and audio is re-encoded to Ogg Vorbis when ffmpeg is available.
+ */
+abstract class TranscodeAssetsTask : DefaultTask() {
+
+    @get:InputDirectory
+    @get:PathSensitive(PathSensitivity.RELATIVE)
+    abstract val artDir: DirectoryProperty
+
+    /** Drawable file name to the largest size (in dp) it is displayed at. */
+    @get:Input
+    abstract val drawableSizesDp: MapProperty<String, Int>
+
+    /** Drawable that becomes the adaptive launcher icon foreground. */
+    @get:Input
+    abstract val launcherSource: Property<String>
+
+    /** Raw file name to target bitrate in kbps. */
+    @get:Input
+    abstract val audioBitratesKbps: MapProperty<String, Int>
+
+    @get:Input
+    abstract val webpQuality: Property<Int>
+
+    @get:OutputDirectory
+    abstract val outputDir: DirectoryProperty
+
+    @get:OutputFile
+    abstract val reportFile: RegularFileProperty
+
+    private val densities = linkedMapOf(
+        "mdpi" to 1f, "hdpi" to 1.5f, "xhdpi" to 2f, "xxhdpi" to 3f, "xxxhdpi" to 4f
+    )
+
+    @TaskAction
+    fun transcode() {
+        val out = outputDir.get().asFile
+        out.deleteRecursively()
+        out.mkdirs()
+
+        val hasCwebp = toolAvailable("cwebp", "-version")
+        val hasFfmpeg = toolAvailable("ffmpeg", "-version")
+        val report = StringBuilder()
+        var totalBefore = 0L
+        var totalAfter = 0L
+
+        // Bitmaps: one variant per density at the real display size
+        drawableSizesDp.get().forEach { (fileName, sizeDp) ->
+            val source = artDir.file("drawable/$fileName").get().asFile
+            val image = ImageIO.read(source)
+            val name = source.nameWithoutExtension
+            var after = 0L
+            densities.forEach { (density, scale) ->
+                val target = File(out, "drawable-$density/$name")
+                after += writeBitmap(coverResize(image, (sizeDp * scale).toInt()), target, hasCwebp)
+            }
+            report.append(line("drawable/$fileName", source.length(), after))
+            totalBefore += source.length()
+            totalAfter += after
+        }
+
+        // Launcher: 108dp adaptive foreground plus 48dp legacy icon per density
+        val launcher = ImageIO.read(artDir.file("drawable/${launcherSource.get()}").get().asFile)
+        var launcherBytes = 0L
+        densities.forEach { (density, scale) ->
+            launcherBytes += writeBitmap(
+                coverResize(launcher, (108 * scale).toInt()),
+                File(out, "mipmap-$density/ic_launcher_game_foreground"), hasCwebp
+            )
+            launcherBytes += writeBitmap(
+                coverResize(launcher, (48 * scale).toInt()),
+                File(out, "mipmap-$density/ic_launcher_game"), hasCwebp
+            )
+        }
+        File(out, "mipmap-anydpi-v26").mkdirs()
+        File(out, "mipmap-anydpi-v26/ic_launcher_game.xml").writeText(
+            """
+            |<?xml version="1.0" encoding="utf-8"?>
+            |<adaptive-icon xmlns:android="http://schemas.android.com/apk/res/android">
+            |    <background android:drawable="@color/ic_launcher_game_background" />
+            |    <foreground android:drawable="@mipmap/ic_launcher_game_foreground" />
+            |</adaptive-icon>
+            |""".trimMargin()
+        )
+        report.append(line("launcher icon (all densities)", 0, launcherBytes))
+        totalAfter += launcherBytes
+
+        // Audio: Ogg Vorbis is far smaller than WAV/MP3 and SoundPool decodes it natively
+        File(out, "raw").mkdirs()
+        audioBitratesKbps.get().forEach { (fileName, kbps) ->
+            val source = artDir.file("raw/$fileName").get().asFile
+            val target = if (hasFfmpeg) {
+                val ogg = File(out, "raw/${source.nameWithoutExtension}.ogg")
+                val process = ProcessBuilder(
+                    "ffmpeg", "-y", "-loglevel", "error", "-i", source.absolutePath,
+                    "-c:a", "libvorbis", "-b:a", "${kbps}k", ogg.absolutePath
+                ).redirectErrorStream(true).start()
+                val output = process.inputStream.bufferedReader().readText()
+                if (process.waitFor() != 0) throw GradleException("ffmpeg failed for $fileName: $output")
+                ogg
+            } else {
+                source.copyTo(File(out, "raw/$fileName"), overwrite = true)
+            }
+            report.append(line("raw/$fileName", source.length(), target.length()))
+            totalBefore += source.length()
+            totalAfter += target.length()
+        }
+
+        report.append(line("TOTAL", totalBefore, totalAfter))
+        if (!hasCwebp) report.append("note: cwebp not found, bitmaps written as resized JPEG/PNG\n")
+        if (!hasFfmpeg) report.append("note: ffmpeg not found, audio copied unchanged\n")
+
+        reportFile.get().asFile.apply {
+            parentFile.mkdirs()
+            writeText(report.toString())
+        }
+        logger.lifecycle("Asset transcoding report:\n$report")
+    }
+
+    /** Scales so the shorter side is [size] px (never upscales), matching CENTER_CROP. */
+    private fun coverResize(image: BufferedImage, size: Int): BufferedImage {
+        val scale = minOf(1.0, size.toDouble() / minOf(image.width, image.height))
+        val width = maxOf(1, (image.width * scale).toInt())
+        val height = maxOf(1, (image.height * scale).toInt())
+        val type = if (image.colorModel.hasAlpha()) BufferedImage.TYPE_INT_ARGB else BufferedImage.TYPE_INT_RGB
+        val resized = BufferedImage(width, height, type)
+        val scaled = image.getScaledInstance(width, height, java.awt.Image.SCALE_AREA_AVERAGING)
+        resized.createGraphics().apply {
+            setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY)
+            drawImage(scaled, 0, 0, null)
+            dispose()
+        }
+        return resized
+    }
+
+    /** Writes [image] to [base] plus an extension and returns the bytes written. */
+    private fun writeBitmap(image: BufferedImage, base: File, webp: Boolean): Long {
+        base.parentFile.mkdirs()
+        if (!webp) {
+            // Without cwebp, opaque art still gets a lossy encoding
+            return if (image.colorModel.hasAlpha()) {
+                File(base.parentFile, "${base.name}.png").also { ImageIO.write(image, "png", it) }.length()
+            } else {
+                File(base.parentFile, "${base.name}.jpg").also { writeJpeg(image, it) }.length()
+            }
+        }
+
+        val png = File(base.parentFile, "${base.name}.tmp.png")
+        ImageIO.write(image, "png", png)
+        val target = File(base.parentFile, "${base.name}.webp")
+        val process = ProcessBuilder(
+            "cwebp", "-quiet", "-q", webpQuality.get().toString(), png.absolutePath, "-o", target.absolutePath
+        ).redirectErrorStream(true).start()
+        val output = process.inputStream.bufferedReader().readText()
+        png.delete()
+        if (process.waitFor() != 0) throw GradleException("cwebp failed for ${base.name}: $output")
+        return target.length()
+    }
+
+    private fun writeJpeg(image: BufferedImage, target: File) {
+        val writer = ImageIO.getImageWritersByFormatName("jpeg").next()
+        val params = writer.defaultWriteParam.apply {
+            compressionMode = ImageWriteParam.MODE_EXPLICIT
+            compressionQuality = webpQuality.get() / 100f
+        }
+        ImageIO.createImageOutputStream(target).use { stream ->
+            writer.output = stream
+            writer.write(null, IIOImage(image, null, null), params)
+        }
+        writer.dispose()
+    }
+
+    private fun toolAvailable(vararg command: String): Boolean = try {
+        ProcessBuilder(*command).redirectErrorStream(true).start().apply {
+            inputStream.readBytes()
+        }.waitFor() == 0
+    } catch (e: java.io.IOException) {
+        false
+    }
+
+    private fun line(name: String, before: Long, after: Long): String =
+        String.format("%-32s %10d -> %10d bytes%n", name, before, after)
+}
+
+val transcodeAssets = tasks.register<TranscodeAssetsTask>("transcodeAssets") {
+    artDir.set(layout.projectDirectory.dir("src/art"))
+    drawableSizesDp.set(mapOf("hello.png" to 360, "img_1.png" to 160, "img_animal.png" to 160))
+    launcherSource.set("hello.png")
+    audioBitratesKbps.set(mapOf("click.wav" to 64, "match.wav" to 64, "notmatch.wav" to 64, "mainmenu.mp3" to 96))
+    webpQuality.set(80)
+    reportFile.set(layout.buildDirectory.file("reports/transcodeAssets/sizes.txt"))
+}
+
+// Generated resources are merged like any other res directory
+androidComponents {
+    onVariants { variant ->
+        variant.sources.res?.addGeneratedSourceDirectory(transcodeAssets, TranscodeAssetsTask::outputDir)
+    }
+}
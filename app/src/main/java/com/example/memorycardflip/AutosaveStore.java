@@ -0,0 +1,151 @@
+package com.example.memorycardflip;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.AtomicFile;
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Keeps the latest game snapshot on disk. Saves are written on a single
+ * background thread through AtomicFile, so a kill mid-write leaves the
+ * previous snapshot intact, and saves that arrive while a write is queued
+ * collapse into one write of the newest snapshot.
+ */
+public class AutosaveStore {
+
+    private static final String TAG = "AutosaveStore";
+    private static final String FILE_NAME = "autosave.bin";
+
+    private final AtomicFile file;
+    private final ExecutorService writer = Executors.newSingleThreadExecutor();
+    private final AtomicReference<byte[]> pending = new AtomicReference<>();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    // Main thread only
+    private final List<Runnable> loadedListeners = new ArrayList<>();
+    private final Runnable notifyLoaded = this::notifyLoaded;
+
+    // Newest snapshot, once the file has been read or a save has been made
+    private volatile byte[] latest;
+    private volatile boolean loaded = false;
+
+    public AutosaveStore(Context context) {
+        file = new AtomicFile(new File(context.getFilesDir(), FILE_NAME));
+    }
+
+    /**
+     * Reads the saved snapshot into memory so a later load() is instant
+     */
+    public synchronized void preload() {
+        if (loaded) {
+            return;
+        }
+        try {
+            latest = file.readFully();
+        } catch (FileNotFoundException e) {
+            latest = null;
+        } catch (IOException e) {
+            Log.w(TAG, "Could not read autosave", e);
+            latest = null;
+        }
+        setLoaded();
+    }
+
+    /**
+     * Never touches the disk, so it answers false until preload() has run;
+     * use whenLoaded() to check again once it has
+     */
+    public boolean hasSnapshot() {
+        return loaded && latest != null;
+    }
+
+    /**
+     * Runs the listener on the main thread once the snapshot is in memory,
+     * right away if it already is. Main thread only.
+     */
+    public void whenLoaded(Runnable listener) {
+        if (loaded) {
+            listener.run();
+        } else {
+            loadedListeners.add(listener);
+        }
+    }
+
+    private void setLoaded() {
+        if (!loaded) {
+            loaded = true;
+            mainHandler.post(notifyLoaded);
+        }
+    }
+
+    private void notifyLoaded() {
+        for (Runnable listener : loadedListeners) {
+            listener.run();
+        }
+        loadedListeners.clear();
+    }
+
+    /**
+     * @return The saved game, or null if there is none or it cannot be read
+     */
+    public GameSnapshot load() {
+        preload();
+        byte[] data = latest;
+        if (data == null) {
+            return null;
+        }
+        try {
+            return GameSnapshot.decode(data);
+        } catch (IOException e) {
+            Log.w(TAG, "Discarding unreadable autosave", e);
+            clear();
+            return null;
+        }
+    }
+
+    /**
+     * Queues a snapshot for writing; returns immediately
+     */
+    public void save(byte[] snapshot) {
+        latest = snapshot;
+        setLoaded();
+        if (pending.getAndSet(snapshot) == null) {
+            writer.execute(this::flush);
+        }
+    }
+
+    public void clear() {
+        latest = null;
+        setLoaded();
+        pending.set(null);
+        writer.execute(file::delete);
+    }
+
+    private void flush() {
+        byte[] data = pending.getAndSet(null);
+        if (data == null) {
+            return;
+        }
+        FileOutputStream out = null;
+        try {
+            out = file.startWrite();
+            out.write(data);
+            file.finishWrite(out);
+        } catch (IOException e) {
+            Log.w(TAG, "Could not write autosave", e);
+            if (out != null) {
+                file.failWrite(out);
+            }
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.memorycardflip;
+
+/**
+ * Running totals for one board kind, kept in memory by the leaderboard so
+ * the score panel reads them in constant time. Built from one aggregate
+ * query at startup and updated as games finish.
+ */
+public class BoardStats {
+
+    private int gamesPlayed;
+    private int bestScore;
+    private long bestTimeMillis; // Fastest cleared game, 0 if none
+    private long totalMoves;
+    private long totalMismatches;
+
+    public BoardStats() {
+    }
+
+    BoardStats(int gamesPlayed, int bestScore, long bestTimeMillis, long totalMoves, long totalMismatches) {
+        this.gamesPlayed = gamesPlayed;
+        this.bestScore = bestScore;
+        this.bestTimeMillis = bestTimeMillis;
+        this.totalMoves = totalMoves;
+        this.totalMismatches = totalMismatches;
+    }
+
+    public void add(GameResult result) {
+        bestScore = gamesPlayed == 0 ? result.score : Math.max(bestScore, result.score);
+        gamesPlayed++;
+        totalMoves += result.moves;
+        totalMismatches += result.mismatches;
+        if (result.cleared && result.durationMillis > 0
+                && (bestTimeMillis == 0 || result.durationMillis < bestTimeMillis)) {
+            bestTimeMillis = result.durationMillis;
+        }
+    }
+
+    public int getGamesPlayed() {
+        return gamesPlayed;
+    }
+
+    public int getBestScore() {
+        return bestScore;
+    }
+
+    public long getBestTimeMillis() {
+        return bestTimeMillis;
+    }
+
+    /**
+     * @return Share of moves that found a pair, 0-1, over all games
+     */
+    public float getAccuracy() {
+        return totalMoves == 0 ? 0f : 1f - (float) totalMismatches / totalMoves;
+    }
+}
@@ -0,0 +1,624 @@
+package com.example.memorycardflip;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Camera;
+import android.graphics.Canvas;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.graphics.PointF;
+import android.graphics.Rect;
+import android.graphics.drawable.Drawable;
+import android.util.AttributeSet;
+import android.view.Choreographer;
+import android.view.GestureDetector;
+import android.view.MotionEvent;
+import android.view.ScaleGestureDetector;
+import android.view.View;
+import android.view.animation.AccelerateDecelerateInterpolator;
+import android.view.animation.AnimationUtils;
+import android.view.animation.Interpolator;
+import android.widget.OverScroller;
+
+import androidx.appcompat.content.res.AppCompatResources;
+
+/**
+ * Draws the whole board on one Canvas. Cell bounds are computed from the grid
+ * pitch rather than stored per card, only cells inside the viewport are drawn,
+ * and flip/match animations only invalidate the cells they touch. Boards that
+ * do not fit the view can be scrolled and pinch-zoomed, so memory and frame
+ * time depend on the viewport rather than the board size.
+ *
+ * Card chrome (background and back) is rasterized once per cell size into
+ * bitmaps and faces come from bitmaps or shared paths, so an animation frame
+ * only changes a transform and never re-rasterizes drawables. Animations are
+ * advanced by a Choreographer callback and report their end to Callbacks,
+ * which is what drives match and mismatch resolution.
+ */
+public class BoardView extends View {
+
+    public interface Callbacks {
+        void onCardTapped(int position);
+
+        /**
+         * @param animation One of ANIMATION_FLIP, ANIMATION_MATCH, ANIMATION_MISMATCH or ANIMATION_DEAL
+         */
+        void onCardAnimationEnd(int position, int animation);
+    }
+
+    // Animation kinds per card
+    public static final int ANIMATION_NONE = 0;
+    public static final int ANIMATION_FLIP = 1;
+    public static final int ANIMATION_MATCH = 2;
+    public static final int ANIMATION_MISMATCH = 3;
+    public static final int ANIMATION_DEAL = 4;
+
+    private static final int CARD_MARGIN = 8;
+    private static final int MATCH_COLOR = 0xFF4CAF50;
+    private static final float MIN_PITCH_DP = 56f;
+    private static final float MAX_ZOOM = 3f;
+
+    private static final int MATCH_DURATION = 300;
+    private static final int MISMATCH_DURATION = 500;
+    private static final int DEAL_DURATION = 250;
+    private static final float MATCH_PULSE_SCALE = 0.1f;
+    private static final float MISMATCH_SHAKE_AMPLITUDE = 0.06f;
+    private static final int MISMATCH_SHAKES = 3;
+
+    private final Interpolator interpolator = new AccelerateDecelerateInterpolator();
+    private final CardFlipTiming flipTiming;
+    private final Camera camera = new Camera();
+    private final Matrix flipMatrix = new Matrix();
+    private final Paint bitmapPaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+    private final Paint matchPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Rect cellRect = new Rect();
+    private final Rect dirtyRect = new Rect();
+    private final Choreographer.FrameCallback frameCallback = this::onAnimationFrame;
+    private final GestureDetector gestureDetector;
+    private final ScaleGestureDetector scaleDetector;
+    private final OverScroller scroller;
+    private final int minPitch;
+
+    private Drawable cardBackground;
+    private Drawable cardBack;
+
+    // Chrome rasterized at the current cell size
+    private Bitmap cardBackgroundBitmap;
+    private Bitmap cardBackBitmap;
+
+    private GameEngine engine;
+    private Callbacks callbacks;
+    private FaceRenderer faceRenderer;
+    private int columns = 1;
+    private int rows = 1;
+    private int numCards = 0;
+
+    // Grid geometry in unzoomed content pixels
+    private int pitch = 0;
+    private int cellSize = 0;
+
+    // Viewport: zoom factor and scroll offset of the zoomed content
+    private float zoom = 1f;
+    private float minZoom = 1f;
+    // MAX_ZOOM for boards that do not fit, 1 (no pinch-zoom) for boards that do
+    private float maxZoom = 1f;
+    private float viewportX = 0f;
+    private float viewportY = 0f;
+
+    // Per-card animation state, sized once per board
+    private byte[] animKind = new byte[0];
+    private long[] animStart = new long[0];
+    private boolean[] showingFace = new boolean[0];
+
+    // Positions with a running animation, so frames never scan the whole board
+    private int[] activePositions = new int[0];
+    private int activeCount = 0;
+    private boolean frameCallbackPosted = false;
+
+    public BoardView(Context context) {
+        this(context, null);
+    }
+
+    public BoardView(Context context, AttributeSet attrs) {
+        this(context, attrs, 0);
+    }
+
+    public BoardView(Context context, AttributeSet attrs, int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+        matchPaint.setColor(MATCH_COLOR);
+        flipTiming = new CardFlipTiming(context);
+        cardBack = AppCompatResources.getDrawable(context, R.drawable.back_card);
+        cardBackground = AppCompatResources.getDrawable(context, R.drawable.card_background);
+        minPitch = Math.round(MIN_PITCH_DP * context.getResources().getDisplayMetrics().density);
+
+        scroller = new OverScroller(context);
+        gestureDetector = new GestureDetector(context, new GestureListener());
+        scaleDetector = new ScaleGestureDetector(context, new ScaleListener());
+    }
+
+    public void setCallbacks(Callbacks callbacks) {
+        this.callbacks = callbacks;
+    }
+
+    public void setFaceRenderer(FaceRenderer faceRenderer) {
+        this.faceRenderer = faceRenderer;
+        if (faceRenderer != null && cellSize > 0) {
+            faceRenderer.onCellSizeChanged(cellSize);
+        }
+        invalidate();
+    }
+
+    public void setCardBackground(int resId) {
+        cardBackground = AppCompatResources.getDrawable(getContext(), resId);
+        rasterizeChrome();
+        invalidate();
+    }
+
+    /**
+     * Binds a freshly dealt board and lays out its cells. A new game on the same
+     * board shape only resets card state, keeping layout, chrome and decoded faces.
+     */
+    public void setBoard(GameEngine engine, int columns, int rows) {
+        boolean sameLayout = this.engine != null && columns == this.columns && rows == this.rows
+                && engine.getNumCards() == numCards && cellSize > 0;
+        this.engine = engine;
+        this.columns = columns;
+        this.rows = rows;
+        numCards = engine.getNumCards();
+
+        if (animKind.length != numCards) {
+            animKind = new byte[numCards];
+            animStart = new long[numCards];
+            showingFace = new boolean[numCards];
+            activePositions = new int[numCards];
+        }
+        for (int i = 0; i < numCards; i++) {
+            animKind[i] = ANIMATION_NONE;
+            showingFace[i] = engine.isRevealed(i) || engine.isMatched(i);
+        }
+        activeCount = 0;
+
+        if (!sameLayout) {
+            layoutCells(getWidth(), getHeight());
+        }
+        invalidate();
+    }
+
+    /**
+     * Animates a card turning to its face or back
+     */
+    public void flip(int position, boolean toFace) {
+        if (showingFace[position] == toFace) {
+            return;
+        }
+        showingFace[position] = toFace;
+        startAnimation(position, ANIMATION_FLIP);
+    }
+
+    /**
+     * Highlights a matched card with a short pulse
+     */
+    public void showMatch(int position) {
+        startAnimation(position, ANIMATION_MATCH);
+    }
+
+    /**
+     * Shakes a mismatched card before it is turned back
+     */
+    public void showMismatch(int position) {
+        startAnimation(position, ANIMATION_MISMATCH);
+    }
+
+    /**
+     * Grows a newly dealt card in face down, e.g. where endless mode replaced
+     * a matched pair. Only this cell is redrawn.
+     */
+    public void dealCard(int position) {
+        showingFace[position] = false;
+        startAnimation(position, ANIMATION_DEAL);
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        Choreographer.getInstance().removeFrameCallback(frameCallback);
+        frameCallbackPosted = false;
+    }
+
+    public int getCellSize() {
+        return cellSize;
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        layoutCells(w, h);
+    }
+
+    /**
+     * Square cells (the SquareViewImage intent). Boards that fit are centered;
+     * larger ones keep a minimum cell size and become scrollable.
+     */
+    private void layoutCells(int width, int height) {
+        int availableWidth = width - getPaddingLeft() - getPaddingRight();
+        int availableHeight = height - getPaddingTop() - getPaddingBottom();
+        if (availableWidth <= 0 || availableHeight <= 0 || numCards == 0) {
+            return;
+        }
+
+        int fitPitch = Math.min(availableWidth / columns, availableHeight / rows);
+        pitch = Math.max(fitPitch, Math.min(minPitch, Math.min(availableWidth, availableHeight)));
+        minZoom = Math.min(1f, Math.min(availableWidth / (float) (pitch * columns),
+                availableHeight / (float) (pitch * rows)));
+        maxZoom = minZoom < 1f ? MAX_ZOOM : 1f;
+        zoom = 1f;
+        viewportX = 0f;
+        viewportY = 0f;
+        scroller.forceFinished(true);
+
+        int inner = pitch - 2 * CARD_MARGIN;
+        if (inner != cellSize) {
+            cellSize = inner;
+            rasterizeChrome();
+            if (cellSize > 0 && faceRenderer != null) {
+                faceRenderer.onCellSizeChanged(cellSize);
+            }
+        }
+
+        // Perspective for the flip, scaled so big cells do not distort
+        camera.setLocation(0f, 0f, -Math.max(8f, cellSize * 4f / 72f));
+    }
+
+    /**
+     * Draws the card background and back once at the cell size
+     */
+    private void rasterizeChrome() {
+        cardBackgroundBitmap = rasterize(cardBackground, cardBackgroundBitmap);
+        cardBackBitmap = rasterize(cardBack, cardBackBitmap);
+    }
+
+    private Bitmap rasterize(Drawable drawable, Bitmap reuse) {
+        if (drawable == null || cellSize <= 0) {
+            return null;
+        }
+        Bitmap bitmap = reuse != null && reuse.getWidth() == cellSize && reuse.getHeight() == cellSize
+                ? reuse : Bitmap.createBitmap(cellSize, cellSize, Bitmap.Config.ARGB_8888);
+        bitmap.eraseColor(0);
+        Canvas canvas = new Canvas(bitmap);
+        drawable.setBounds(0, 0, cellSize, cellSize);
+        drawable.draw(canvas);
+        return bitmap;
+    }
+
+    /**
+     * @return View x of the content origin, centering content narrower than the view
+     */
+    private float originX() {
+        float available = getWidth() - getPaddingLeft() - getPaddingRight();
+        float content = pitch * columns * zoom;
+        return getPaddingLeft() + (content < available ? (available - content) / 2f : -viewportX);
+    }
+
+    private float originY() {
+        float available = getHeight() - getPaddingTop() - getPaddingBottom();
+        float content = pitch * rows * zoom;
+        return getPaddingTop() + (content < available ? (available - content) / 2f : -viewportY);
+    }
+
+    private float maxViewportX() {
+        return Math.max(0f, pitch * columns * zoom - (getWidth() - getPaddingLeft() - getPaddingRight()));
+    }
+
+    private float maxViewportY() {
+        return Math.max(0f, pitch * rows * zoom - (getHeight() - getPaddingTop() - getPaddingBottom()));
+    }
+
+    private void scrollViewportTo(float x, float y) {
+        viewportX = Math.max(0f, Math.min(x, maxViewportX()));
+        viewportY = Math.max(0f, Math.min(y, maxViewportY()));
+        postInvalidateOnAnimation();
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+        if (engine == null || cellSize <= 0) {
+            return;
+        }
+
+        float originX = originX();
+        float originY = originY();
+
+        // Only the rows and columns intersecting the viewport are drawn
+        float scaledPitch = pitch * zoom;
+        int firstColumn = Math.max(0, (int) Math.floor(-originX / scaledPitch));
+        int lastColumn = Math.min(columns - 1, (int) Math.floor((getWidth() - originX) / scaledPitch));
+        int firstRow = Math.max(0, (int) Math.floor(-originY / scaledPitch));
+        int lastRow = Math.min(rows - 1, (int) Math.floor((getHeight() - originY) / scaledPitch));
+
+        int save = canvas.save();
+        canvas.translate(originX, originY);
+        canvas.scale(zoom, zoom);
+        long now = AnimationUtils.currentAnimationTimeMillis();
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int column = firstColumn; column <= lastColumn; column++) {
+                int position = row * columns + column;
+                if (position < numCards) {
+                    drawCard(canvas, position, now);
+                }
+            }
+        }
+        canvas.restoreToCount(save);
+    }
+
+    /**
+     * Sets out to the card bounds in unzoomed content coordinates
+     */
+    private void cellBounds(int position, Rect out) {
+        int x = (position % columns) * pitch;
+        int y = (position / columns) * pitch;
+        out.set(x + CARD_MARGIN, y + CARD_MARGIN, x + pitch - CARD_MARGIN, y + pitch - CARD_MARGIN);
+    }
+
+    private void drawCard(Canvas canvas, int position, long now) {
+        Rect cell = cellRect;
+        cellBounds(position, cell);
+        boolean face = showingFace[position];
+        float rotationY = 0f;
+        float scale = 1f;
+        float shift = 0f;
+
+        int kind = animKind[position];
+        if (kind != ANIMATION_NONE) {
+            long elapsed = now - animStart[position];
+            if (kind == ANIMATION_FLIP) {
+                // Turn to 90 degrees showing the old side, then back showing the new side
+                rotationY = flipTiming.getRotationY(elapsed);
+                if (flipTiming.isFirstPhase(elapsed)) {
+                    face = !face;
+                }
+            } else if (kind == ANIMATION_MATCH) {
+                float t = Math.min(1f, elapsed / (float) MATCH_DURATION);
+                scale = 1f + MATCH_PULSE_SCALE * (float) Math.sin(Math.PI * interpolator.getInterpolation(t));
+            } else if (kind == ANIMATION_DEAL) {
+                scale = interpolator.getInterpolation(Math.min(1f, elapsed / (float) DEAL_DURATION));
+            } else {
+                float t = Math.min(1f, elapsed / (float) MISMATCH_DURATION);
+                shift = cell.width() * MISMATCH_SHAKE_AMPLITUDE * (1f - t)
+                        * (float) Math.sin(2 * Math.PI * MISMATCH_SHAKES * t);
+            }
+        }
+
+        int save = canvas.save();
+        if (rotationY != 0f) {
+            camera.save();
+            camera.rotateY(rotationY);
+            camera.getMatrix(flipMatrix);
+            camera.restore();
+            flipMatrix.preTranslate(-cell.exactCenterX(), -cell.exactCenterY());
+            flipMatrix.postTranslate(cell.exactCenterX(), cell.exactCenterY());
+            canvas.concat(flipMatrix);
+        } else if (scale != 1f) {
+            canvas.scale(scale, scale, cell.exactCenterX(), cell.exactCenterY());
+        } else if (shift != 0f) {
+            canvas.translate(shift, 0f);
+        }
+
+        if (engine.isMatched(position)) {
+            canvas.drawRect(cell, matchPaint);
+        } else if (cardBackgroundBitmap != null) {
+            canvas.drawBitmap(cardBackgroundBitmap, null, cell, bitmapPaint);
+        }
+
+        boolean drewFace = face && faceRenderer != null
+                && faceRenderer.drawFace(canvas, engine.getFace(position), cell);
+        if (!drewFace && (faceRenderer == null || !faceRenderer.drawBack(canvas, cell))
+                && cardBackBitmap != null) {
+            canvas.drawBitmap(cardBackBitmap, null, cell, bitmapPaint);
+        }
+
+        canvas.restoreToCount(save);
+    }
+
+    private void startAnimation(int position, int kind) {
+        if (animKind[position] == ANIMATION_NONE) {
+            activePositions[activeCount++] = position;
+        }
+        animKind[position] = (byte) kind;
+        animStart[position] = AnimationUtils.currentAnimationTimeMillis();
+        postInvalidateCell(position, true);
+
+        if (!frameCallbackPosted) {
+            frameCallbackPosted = true;
+            Choreographer.getInstance().postFrameCallback(frameCallback);
+        }
+    }
+
+    private long getAnimationDuration(int kind) {
+        switch (kind) {
+            case ANIMATION_FLIP:
+                return flipTiming.getDuration();
+            case ANIMATION_MATCH:
+                return MATCH_DURATION;
+            case ANIMATION_MISMATCH:
+                return MISMATCH_DURATION;
+            case ANIMATION_DEAL:
+                return DEAL_DURATION;
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * Advances running animations once per vsync, whether or not their cells are
+     * on screen, and reports the ones that finished.
+     */
+    private void onAnimationFrame(long frameTimeNanos) {
+        frameCallbackPosted = false;
+        long now = AnimationUtils.currentAnimationTimeMillis();
+
+        // Walk backwards so finished entries can be swapped out, and animations
+        // started from a callback are appended past the current index
+        for (int i = activeCount - 1; i >= 0; i--) {
+            int position = activePositions[i];
+            int kind = animKind[position];
+            postInvalidateCell(position, true);
+            if (now - animStart[position] < getAnimationDuration(kind)) {
+                continue;
+            }
+
+            animKind[position] = ANIMATION_NONE;
+            activePositions[i] = activePositions[--activeCount];
+            if (callbacks != null) {
+                callbacks.onCardAnimationEnd(position, kind);
+            }
+        }
+
+        if (activeCount > 0 && !frameCallbackPosted) {
+            frameCallbackPosted = true;
+            Choreographer.getInstance().postFrameCallback(frameCallback);
+        }
+    }
+
+    /**
+     * Invalidates one cell in view coordinates, grown by the overshoot of pulse, shake and perspective
+     */
+    private void postInvalidateCell(int position, boolean includeOvershoot) {
+        cellBounds(position, dirtyRect);
+        int grow = includeOvershoot ? (int) Math.ceil(dirtyRect.width() * MATCH_PULSE_SCALE) + 1 : 0;
+        dirtyRect.inset(-grow, -grow);
+
+        float originX = originX();
+        float originY = originY();
+        postInvalidateOnAnimation(
+                (int) Math.floor(originX + dirtyRect.left * zoom),
+                (int) Math.floor(originY + dirtyRect.top * zoom),
+                (int) Math.ceil(originX + dirtyRect.right * zoom),
+                (int) Math.ceil(originY + dirtyRect.bottom * zoom));
+    }
+
+    /**
+     * View coordinates of a card's center, the inverse of hitTest(); used to
+     * drive the board with touches in tests
+     */
+    void getCellCenter(int position, PointF out) {
+        cellBounds(position, cellRect);
+        out.set(originX() + cellRect.exactCenterX() * zoom, originY() + cellRect.exactCenterY() * zoom);
+    }
+
+    /**
+     * @return The card position under the view point, or -1 for margins and empty space
+     */
+    private int hitTest(float x, float y) {
+        if (pitch <= 0) {
+            return -1;
+        }
+        float contentX = (x - originX()) / zoom;
+        float contentY = (y - originY()) / zoom;
+        if (contentX < 0 || contentY < 0) {
+            return -1;
+        }
+        int column = (int) (contentX / pitch);
+        int row = (int) (contentY / pitch);
+        if (column >= columns || row >= rows) {
+            return -1;
+        }
+        int position = row * columns + column;
+        if (position >= numCards) {
+            return -1;
+        }
+        cellBounds(position, cellRect);
+        return cellRect.contains((int) contentX, (int) contentY) ? position : -1;
+    }
+
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        if (engine == null) {
+            return false;
+        }
+        boolean handled = scaleDetector.onTouchEvent(event);
+        handled |= gestureDetector.onTouchEvent(event);
+        return handled || super.onTouchEvent(event);
+    }
+
+    @Override
+    public boolean performClick() {
+        return super.performClick();
+    }
+
+    @Override
+    public void computeScroll() {
+        if (scroller.computeScrollOffset()) {
+            scrollViewportTo(scroller.getCurrX(), scroller.getCurrY());
+        }
+    }
+
+    private boolean deliverTap(MotionEvent e) {
+        int position = hitTest(e.getX(), e.getY());
+        if (position < 0) {
+            return false;
+        }
+        performClick();
+        if (callbacks != null) {
+            callbacks.onCardTapped(position);
+        }
+        return true;
+    }
+
+    private class GestureListener extends GestureDetector.SimpleOnGestureListener {
+        // Set when the current gesture's tap was already delivered on touch-down
+        private boolean tapDeliveredOnDown = false;
+
+        @Override
+        public boolean onDown(MotionEvent e) {
+            scroller.forceFinished(true);
+            tapDeliveredOnDown = false;
+            // A board that fits can neither scroll nor zoom, so a touch can only be a
+            // tap: react without waiting for the lift. Otherwise this finger may start
+            // a pinch, and the tap waits for onSingleTapUp, which a second pointer cancels.
+            if (maxZoom <= 1f && maxViewportX() <= 0 && maxViewportY() <= 0) {
+                tapDeliveredOnDown = deliverTap(e);
+            }
+            return true;
+        }
+
+        @Override
+        public boolean onSingleTapUp(MotionEvent e) {
+            return tapDeliveredOnDown || deliverTap(e);
+        }
+
+        @Override
+        public boolean onScroll(MotionEvent e1, MotionEvent e2, float distanceX, float distanceY) {
+            scrollViewportTo(viewportX + distanceX, viewportY + distanceY);
+            return true;
+        }
+
+        @Override
+        public boolean onFling(MotionEvent e1, MotionEvent e2, float velocityX, float velocityY) {
+            scroller.fling((int) viewportX, (int) viewportY, (int) -velocityX, (int) -velocityY,
+                    0, (int) maxViewportX(), 0, (int) maxViewportY());
+            postInvalidateOnAnimation();
+            return true;
+        }
+    }
+
+    private class ScaleListener extends ScaleGestureDetector.SimpleOnScaleGestureListener {
+        @Override
+        public boolean onScale(ScaleGestureDetector detector) {
+            float newZoom = Math.max(minZoom, Math.min(maxZoom, zoom * detector.getScaleFactor()));
+            if (newZoom == zoom) {
+                return true;
+            }
+
+            // Keep the content point under the focus fixed while zooming
+            float focusX = detector.getFocusX();
+            float focusY = detector.getFocusY();
+            float contentX = (focusX - originX()) / zoom;
+            float contentY = (focusY - originY()) / zoom;
+            zoom = newZoom;
+            scrollViewportTo(contentX * zoom - (focusX - getPaddingLeft()),
+                    contentY * zoom - (focusY - getPaddingTop()));
+            return true;
+        }
+    }
+}
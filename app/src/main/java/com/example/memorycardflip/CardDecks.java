@@ -0,0 +1,22 @@
+package com.example.memorycardflip;
+
+/**
+ * Built-in card decks shared by the game screen and startup warmup.
+ */
+public final class CardDecks {
+
+    public static final int[] EASY = {
+        R.drawable.apple, R.drawable.banana, R.drawable.grapes,
+        R.drawable.hippo, R.drawable.lion, R.drawable.monkey
+    };
+
+    public static final int[] HARD = {
+        R.drawable.apple, R.drawable.banana, R.drawable.grapes,
+        R.drawable.hippo, R.drawable.lion, R.drawable.monkey,
+        R.drawable.orange, R.drawable.img_1, R.drawable.hello,
+        R.drawable.fish, R.drawable.watermelon
+    };
+
+    private CardDecks() {
+    }
+}
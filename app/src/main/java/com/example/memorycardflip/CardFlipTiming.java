@@ -0,0 +1,81 @@
+package com.example.memorycardflip;
+
+import android.animation.Animator;
+import android.animation.AnimatorInflater;
+import android.animation.AnimatorSet;
+import android.animation.TimeInterpolator;
+import android.content.Context;
+import android.view.animation.AccelerateDecelerateInterpolator;
+
+import java.util.ArrayList;
+
+/**
+ * Timing of the two-phase card flip defined in res/anim/card_flip.xml: the
+ * card turns from 0 to -90 degrees, the face is swapped, then it turns from
+ * 90 back to 0. BoardView evaluates it per frame instead of running one
+ * ObjectAnimator per card.
+ */
+public class CardFlipTiming {
+
+    private static final long DEFAULT_PHASE_DURATION = 250;
+
+    private final long firstPhaseDuration;
+    private final long secondPhaseDuration;
+    private final TimeInterpolator firstInterpolator;
+    private final TimeInterpolator secondInterpolator;
+
+    public CardFlipTiming(Context context) {
+        long firstDuration = DEFAULT_PHASE_DURATION;
+        long secondDuration = DEFAULT_PHASE_DURATION;
+        TimeInterpolator first = new AccelerateDecelerateInterpolator();
+        TimeInterpolator second = first;
+
+        try {
+            Animator animator = AnimatorInflater.loadAnimator(context, R.anim.card_flip);
+            if (animator instanceof AnimatorSet) {
+                ArrayList<Animator> phases = ((AnimatorSet) animator).getChildAnimations();
+                if (phases.size() == 2) {
+                    firstDuration = phases.get(0).getDuration();
+                    secondDuration = phases.get(1).getDuration();
+                    if (phases.get(0).getInterpolator() != null) {
+                        first = phases.get(0).getInterpolator();
+                    }
+                    if (phases.get(1).getInterpolator() != null) {
+                        second = phases.get(1).getInterpolator();
+                    }
+                }
+            }
+        } catch (Exception e) {
+            // Keep the defaults, which mirror the XML
+            e.printStackTrace();
+        }
+
+        firstPhaseDuration = firstDuration;
+        secondPhaseDuration = secondDuration;
+        firstInterpolator = first;
+        secondInterpolator = second;
+    }
+
+    public long getDuration() {
+        return firstPhaseDuration + secondPhaseDuration;
+    }
+
+    /**
+     * @return true while the old side is still showing
+     */
+    public boolean isFirstPhase(long elapsed) {
+        return elapsed < firstPhaseDuration;
+    }
+
+    /**
+     * @return The rotationY angle in degrees after the given elapsed time
+     */
+    public float getRotationY(long elapsed) {
+        if (elapsed < firstPhaseDuration) {
+            float t = firstInterpolator.getInterpolation(elapsed / (float) firstPhaseDuration);
+            return -90f * t;
+        }
+        float t = Math.min(1f, (elapsed - firstPhaseDuration) / (float) secondPhaseDuration);
+        return 90f * (1f - secondInterpolator.getInterpolation(t));
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.memorycardflip;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Typeface;
+import android.util.AttributeSet;
+import android.util.TypedValue;
+import android.view.Choreographer;
+import android.view.View;
+
+/**
+ * Millisecond game clock that draws its own text. Its size is fixed by the
+ * widest possible time, so a tick only invalidates this view and never asks
+ * the score panel for a layout pass. While the clock runs the view redraws
+ * from Choreographer frame callbacks using the vsync timestamp, and stops
+ * ticking when the clock is paused or the view leaves the window.
+ */
+public class ClockView extends View {
+
+    private static final float TEXT_SIZE_SP = 26f;
+    private static final int TEXT_COLOR = 0xFF1976D2;
+    private static final int EXPIRED_COLOR = 0xFFD32F2F;
+
+    private final Paint textPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final char[] text = new char[GameClock.FORMAT_LENGTH];
+    private final Choreographer.FrameCallback frameCallback = this::onFrame;
+
+    private GameClock clock;
+    private long limitMillis = 0;
+    private Runnable onExpired;
+    private long shownMillis = -1;
+    private boolean expiredReported = false;
+    private boolean callbackPosted = false;
+
+    public ClockView(Context context) {
+        this(context, null);
+    }
+
+    public ClockView(Context context, AttributeSet attrs) {
+        this(context, attrs, 0);
+    }
+
+    public ClockView(Context context, AttributeSet attrs, int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+        textPaint.setColor(TEXT_COLOR);
+        textPaint.setTypeface(Typeface.DEFAULT_BOLD);
+        textPaint.setTextSize(TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, TEXT_SIZE_SP,
+                context.getResources().getDisplayMetrics()));
+        // Tabular digits keep every time the same width
+        textPaint.setFontFeatureSettings("tnum");
+        GameClock.format(0, text);
+    }
+
+    /**
+     * @param limitMillis Time limit to count down from, or 0 to count up
+     * @param onExpired Called once when a countdown reaches zero
+     */
+    public void setClock(GameClock clock, long limitMillis, Runnable onExpired) {
+        this.clock = clock;
+        this.limitMillis = limitMillis;
+        this.onExpired = onExpired;
+        update();
+    }
+
+    /**
+     * Call after starting, pausing or resetting the clock
+     */
+    public void update() {
+        expiredReported = isExpired(System.nanoTime());
+        showTime(System.nanoTime());
+        scheduleFrame();
+    }
+
+    public boolean isExpired(long nowNanos) {
+        return clock != null && limitMillis > 0 && clock.getElapsedMillis(nowNanos) >= limitMillis;
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        // Sized for the widest time, so ticks never change it
+        int width = (int) Math.ceil(textPaint.measureText("00:00.000")) + getPaddingLeft() + getPaddingRight();
+        Paint.FontMetricsInt metrics = textPaint.getFontMetricsInt();
+        int height = metrics.bottom - metrics.top + getPaddingTop() + getPaddingBottom();
+        setMeasuredDimension(resolveSize(width, widthMeasureSpec), resolveSize(height, heightMeasureSpec));
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+        float baseline = getPaddingTop() - textPaint.getFontMetricsInt().top;
+        canvas.drawText(text, 0, text.length, getPaddingLeft(), baseline, textPaint);
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        scheduleFrame();
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        Choreographer.getInstance().removeFrameCallback(frameCallback);
+        callbackPosted = false;
+    }
+
+    private void scheduleFrame() {
+        if (!callbackPosted && clock != null && clock.isRunning() && isAttachedToWindow()) {
+            callbackPosted = true;
+            Choreographer.getInstance().postFrameCallback(frameCallback);
+        }
+    }
+
+    private void onFrame(long frameTimeNanos) {
+        callbackPosted = false;
+        if (clock == null || !clock.isRunning()) {
+            return;
+        }
+        showTime(frameTimeNanos);
+        if (!expiredReported && isExpired(frameTimeNanos)) {
+            expiredReported = true;
+            if (onExpired != null) {
+                onExpired.run();
+            }
+        }
+        scheduleFrame();
+    }
+
+    /**
+     * Redraws only when the shown millisecond value changes
+     */
+    private void showTime(long nowNanos) {
+        if (clock == null) {
+            return;
+        }
+        long elapsed = clock.getElapsedMillis(nowNanos);
+        long millis = limitMillis > 0 ? Math.max(0, limitMillis - elapsed) : elapsed;
+        if (millis == shownMillis) {
+            return;
+        }
+        shownMillis = millis;
+        GameClock.format(millis, text);
+        textPaint.setColor(limitMillis > 0 && millis == 0 ? EXPIRED_COLOR : TEXT_COLOR);
+        invalidate();
+    }
+}
@@ -0,0 +1,166 @@
+package com.example.memorycardflip;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+
+import java.io.File;
+
+/**
+ * Draws faces from a deck of drawable resources or imported photo thumbnails.
+ * Once the shared FaceCache has packed the deck and the back into an atlas for
+ * the cell size, every card is a sub-rect blit from that one bitmap; until
+ * then faces are center-cropped from the per-face cache if already decoded,
+ * otherwise (and for photo decks) the back is shown until they land.
+ */
+public class DeckFaceRenderer implements FaceRenderer {
+
+    private final FaceCache faceCache;
+    private final int[] resIds;
+    private File[] faceFiles;
+    private final int backResId;
+    private String deckKey;
+    private final Runnable onFacesReady;
+    private final Paint bitmapPaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+    private final Rect srcRect = new Rect();
+    private int cellSize = 0;
+    private FaceAtlas atlas;
+    private boolean prefetchPending = false;
+
+    /**
+     * @param onFacesReady Optional callback run once the atlas or the missing faces are ready
+     */
+    public DeckFaceRenderer(FaceCache faceCache, int[] resIds, int backResId, Runnable onFacesReady) {
+        this.faceCache = faceCache;
+        this.resIds = resIds;
+        this.backResId = backResId;
+        this.onFacesReady = onFacesReady;
+        deckKey = FaceCache.deckKey(resIds, backResId);
+    }
+
+    /**
+     * Photo deck; the faces can be swapped per game with setFaceFiles()
+     */
+    public DeckFaceRenderer(FaceCache faceCache, File[] faceFiles, int backResId, Runnable onFacesReady) {
+        this.faceCache = faceCache;
+        this.resIds = null;
+        this.backResId = backResId;
+        this.onFacesReady = onFacesReady;
+        setFaceFiles(faceFiles);
+    }
+
+    /**
+     * Switches a photo deck to other thumbnails, packing a new atlas if needed
+     */
+    public void setFaceFiles(File[] faceFiles) {
+        String key = FaceCache.deckKey(faceFiles, backResId);
+        if (key.equals(deckKey)) {
+            return;
+        }
+        this.faceFiles = faceFiles.clone();
+        deckKey = key;
+        atlas = null;
+        if (cellSize > 0) {
+            onCellSizeChanged(cellSize);
+        }
+    }
+
+    @Override
+    public void onCellSizeChanged(int cellSize) {
+        this.cellSize = cellSize;
+        // Rebuilt only for a new cell size; boards of the same size reuse the cached atlas
+        atlas = faceCache.getAtlas(deckKey, cellSize);
+        if (atlas != null) {
+            if (onFacesReady != null) {
+                onFacesReady.run();
+            }
+            return;
+        }
+        FaceCache.AtlasListener listener = built -> {
+            if (built.isReleased() || !built.matches(deckKey, faceCache.atlasCellSize(this.cellSize))) {
+                return; // Cell size or faces changed again while packing, or memory ran low
+            }
+            atlas = built;
+            if (onFacesReady != null) {
+                onFacesReady.run();
+            }
+        };
+        if (resIds != null) {
+            faceCache.buildAtlas(resIds, backResId, cellSize, listener);
+        } else {
+            faceCache.buildAtlas(faceFiles, backResId, cellSize, listener);
+        }
+    }
+
+    @Override
+    public boolean drawFace(Canvas canvas, int face, Rect bounds) {
+        checkAtlasReleased();
+        if (atlas != null) {
+            atlas.drawFace(canvas, face, bounds, bitmapPaint);
+            return true;
+        }
+        if (resIds == null) {
+            return false;
+        }
+        // Never decode on the draw pass: show the back and redraw once the faces land
+        Bitmap bitmap = faceCache.get(resIds[face], cellSize, cellSize);
+        if (bitmap == null) {
+            requestFaces();
+            return false;
+        }
+        centerCrop(bitmap, bounds);
+        canvas.drawBitmap(bitmap, srcRect, bounds, bitmapPaint);
+        return true;
+    }
+
+    @Override
+    public boolean drawBack(Canvas canvas, Rect bounds) {
+        checkAtlasReleased();
+        if (atlas == null) {
+            return false;
+        }
+        atlas.drawBack(canvas, bounds, bitmapPaint);
+        return true;
+    }
+
+    /**
+     * Decodes the missing faces in the background, e.g. after a memory trim
+     * dropped them while the atlas is being packed again
+     */
+    private void requestFaces() {
+        if (prefetchPending || cellSize <= 0) {
+            return;
+        }
+        prefetchPending = true;
+        faceCache.prefetch(resIds, cellSize, cellSize, () -> {
+            prefetchPending = false;
+            if (onFacesReady != null) {
+                onFacesReady.run();
+            }
+        });
+    }
+
+    /**
+     * The cache frees the atlas under memory pressure; pack it again for this board
+     */
+    private void checkAtlasReleased() {
+        if (atlas != null && atlas.isReleased()) {
+            onCellSizeChanged(cellSize);
+        }
+    }
+
+    /**
+     * Sets srcRect to the part of the bitmap that CENTER_CROP would show in dst
+     */
+    private void centerCrop(Bitmap bitmap, Rect dst) {
+        int bw = bitmap.getWidth();
+        int bh = bitmap.getHeight();
+        float scale = Math.max(dst.width() / (float) bw, dst.height() / (float) bh);
+        int srcW = Math.round(dst.width() / scale);
+        int srcH = Math.round(dst.height() / scale);
+        int left = (bw - srcW) / 2;
+        int top = (bh - srcH) / 2;
+        srcRect.set(left, top, left + srcW, top + srcH);
+    }
+}
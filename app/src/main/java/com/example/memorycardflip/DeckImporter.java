@@ -0,0 +1,249 @@
+package com.example.memorycardflip;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Matrix;
+import android.media.ExifInterface;
+import android.net.Uri;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Turns picked photos into a photo deck. Each photo is decoded subsampled to
+ * about the thumbnail size, turned upright, center-cropped square like a card
+ * cell and written as a JPEG thumbnail into the DeckStore. Photos are handled
+ * by a small fixed pool, so at most that many are decoded at once however
+ * many were picked. One import runs at a time; progress and the result are
+ * reported on the main thread.
+ */
+public class DeckImporter {
+
+    private static final String TAG = "DeckImporter";
+
+    // Large enough for a hard-mode cell on a tablet; the board scales it down
+    static final int THUMBNAIL_SIZE = 384;
+    private static final int JPEG_QUALITY = 85;
+    private static final int MAX_WORKERS = 3;
+
+    public interface Listener {
+        void onImportProgress(int done, int total);
+
+        /**
+         * @param deck The new deck, or null if no photo could be read
+         */
+        void onImportFinished(DeckIndex.Entry deck);
+    }
+
+    private final ContentResolver resolver;
+    private final DeckStore store;
+    private final ExecutorService workers;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    // Main thread only
+    private Listener listener;
+    private boolean running = false;
+    private int lastDone = 0;
+    private int lastTotal = 0;
+
+    public DeckImporter(Context context, DeckStore store) {
+        this.resolver = context.getApplicationContext().getContentResolver();
+        this.store = store;
+        int workerCount = Math.max(1, Math.min(MAX_WORKERS, Runtime.getRuntime().availableProcessors() - 1));
+        workers = Executors.newFixedThreadPool(workerCount);
+    }
+
+    /**
+     * Attaches the screen that shows progress; it is told the current progress
+     * right away if an import is running
+     */
+    public void setListener(Listener listener) {
+        this.listener = listener;
+        if (listener != null && running) {
+            listener.onImportProgress(lastDone, lastTotal);
+        }
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Starts importing the photos as a new deck. Main thread only.
+     * @return false if an import is already running
+     */
+    public boolean importPhotos(List<Uri> photos, String name) {
+        if (running || photos.isEmpty()) {
+            return false;
+        }
+        running = true;
+        final long id = System.currentTimeMillis();
+        final int total = photos.size();
+        final boolean[] imported = new boolean[total];
+        final AtomicInteger remaining = new AtomicInteger(total);
+        final File dir;
+        try {
+            dir = store.deckDir(id);
+        } catch (IOException e) {
+            Log.w(TAG, "Could not create deck", e);
+            finish(null);
+            return true;
+        }
+        final long start = SystemClock.elapsedRealtime();
+        postProgress(0, total);
+
+        for (int i = 0; i < total; i++) {
+            final int photo = i;
+            final Uri uri = photos.get(i);
+            workers.execute(() -> {
+                // Written under the picked position, renumbered once all are done
+                imported[photo] = importPhoto(uri, new File(dir, "tmp" + photo + DeckStore.THUMBNAIL_SUFFIX));
+                int left = remaining.decrementAndGet();
+                postProgress(total - left, total);
+                if (left == 0) {
+                    DeckIndex.Entry deck = commit(id, name, dir, imported);
+                    Log.i(TAG, "Imported " + (deck != null ? deck.faceCount : 0) + " of " + total
+                            + " photos in " + (SystemClock.elapsedRealtime() - start) + " ms");
+                    mainHandler.post(() -> finish(deck));
+                }
+            });
+        }
+        return true;
+    }
+
+    /**
+     * Numbers the thumbnails that were written and lists the deck
+     */
+    private DeckIndex.Entry commit(long id, String name, File dir, boolean[] imported) {
+        int faces = 0;
+        for (int i = 0; i < imported.length; i++) {
+            if (imported[i] && new File(dir, "tmp" + i + DeckStore.THUMBNAIL_SUFFIX)
+                    .renameTo(store.thumbnail(id, faces))) {
+                faces++;
+            }
+        }
+        if (faces == 0) {
+            store.deleteDir(dir);
+            return null;
+        }
+        DeckIndex.Entry deck = new DeckIndex.Entry(id, name, faces, System.currentTimeMillis());
+        try {
+            store.add(deck);
+        } catch (IOException e) {
+            Log.w(TAG, "Could not list deck", e);
+            store.deleteDir(dir);
+            return null;
+        }
+        return deck;
+    }
+
+    private boolean importPhoto(Uri uri, File target) {
+        Bitmap source = null;
+        Bitmap thumbnail = null;
+        try {
+            // Bounds first, so multi-megapixel photos are subsampled while decoding
+            BitmapFactory.Options options = new BitmapFactory.Options();
+            options.inJustDecodeBounds = true;
+            try (InputStream in = resolver.openInputStream(uri)) {
+                BitmapFactory.decodeStream(in, null, options);
+            }
+            if (options.outWidth <= 0 || options.outHeight <= 0) {
+                return false;
+            }
+            options.inSampleSize = FaceCache.calculateInSampleSize(options.outWidth, options.outHeight,
+                    THUMBNAIL_SIZE, THUMBNAIL_SIZE);
+            options.inJustDecodeBounds = false;
+            try (InputStream in = resolver.openInputStream(uri)) {
+                source = BitmapFactory.decodeStream(in, null, options);
+            }
+            if (source == null) {
+                return false;
+            }
+
+            // Square center crop scaled to the thumbnail size, turned upright
+            int side = Math.min(source.getWidth(), source.getHeight());
+            float scale = Math.min(1f, THUMBNAIL_SIZE / (float) side);
+            Matrix matrix = new Matrix();
+            matrix.postScale(scale, scale);
+            matrix.postRotate(readRotation(uri));
+            thumbnail = Bitmap.createBitmap(source, (source.getWidth() - side) / 2,
+                    (source.getHeight() - side) / 2, side, side, matrix, true);
+
+            try (FileOutputStream out = new FileOutputStream(target)) {
+                return thumbnail.compress(Bitmap.CompressFormat.JPEG, JPEG_QUALITY, out);
+            }
+        } catch (IOException | SecurityException | OutOfMemoryError e) {
+            Log.w(TAG, "Skipping " + uri, e);
+            return false;
+        } finally {
+            if (thumbnail != null && thumbnail != source) {
+                thumbnail.recycle();
+            }
+            if (source != null) {
+                source.recycle();
+            }
+        }
+    }
+
+    /**
+     * @return Degrees the photo is turned according to its EXIF data
+     */
+    private int readRotation(Uri uri) {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.N) {
+            return 0; // No stream-based ExifInterface before API 24
+        }
+        try (InputStream in = resolver.openInputStream(uri)) {
+            if (in == null) {
+                return 0;
+            }
+            switch (new ExifInterface(in).getAttributeInt(ExifInterface.TAG_ORIENTATION,
+                    ExifInterface.ORIENTATION_NORMAL)) {
+                case ExifInterface.ORIENTATION_ROTATE_90:
+                    return 90;
+                case ExifInterface.ORIENTATION_ROTATE_180:
+                    return 180;
+                case ExifInterface.ORIENTATION_ROTATE_270:
+                    return 270;
+                default:
+                    return 0;
+            }
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private void postProgress(int done, int total) {
+        mainHandler.post(() -> {
+            if (!running || done < lastDone) {
+                return;
+            }
+            lastDone = done;
+            lastTotal = total;
+            if (listener != null) {
+                listener.onImportProgress(done, total);
+            }
+        });
+    }
+
+    private void finish(DeckIndex.Entry deck) {
+        running = false;
+        lastDone = 0;
+        lastTotal = 0;
+        if (listener != null) {
+            listener.onImportFinished(deck);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.memorycardflip;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Binary index of the imported photo decks: id, name, number of faces and
+ * creation time per deck, with a CRC trailer like the game snapshot. The
+ * thumbnails themselves live next to it in DeckStore.
+ */
+public class DeckIndex {
+
+    private static final int MAGIC = 0x444B;
+    private static final int VERSION = 1;
+
+    public static class Entry {
+        public final long id;
+        public final String name;
+        public final int faceCount;
+        public final long createdMillis;
+
+        public Entry(long id, String name, int faceCount, long createdMillis) {
+            this.id = id;
+            this.name = name;
+            this.faceCount = faceCount;
+            this.createdMillis = createdMillis;
+        }
+    }
+
+    private final List<Entry> entries = new ArrayList<>();
+
+    public List<Entry> getEntries() {
+        return Collections.unmodifiableList(entries);
+    }
+
+    /**
+     * @return The deck with the id, or null if there is none
+     */
+    public Entry find(long id) {
+        for (Entry entry : entries) {
+            if (entry.id == id) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    public void add(Entry entry) {
+        remove(entry.id);
+        entries.add(entry);
+    }
+
+    public boolean remove(long id) {
+        for (int i = 0; i < entries.size(); i++) {
+            if (entries.get(i).id == id) {
+                entries.remove(i);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public byte[] encode() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(16 + entries.size() * 40);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeShort(MAGIC);
+            out.writeByte(VERSION);
+            out.writeShort(entries.size());
+            for (Entry entry : entries) {
+                out.writeLong(entry.id);
+                out.writeUTF(entry.name);
+                out.writeShort(entry.faceCount);
+                out.writeLong(entry.createdMillis);
+            }
+            CRC32 crc = new CRC32();
+            crc.update(bytes.toByteArray());
+            out.writeInt((int) crc.getValue());
+        } catch (IOException e) {
+            // ByteArrayOutputStream does not throw
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * @throws IOException If the data is truncated, corrupt or from another version
+     */
+    public static DeckIndex decode(byte[] data) throws IOException {
+        if (data.length < 4) {
+            throw new IOException("Deck index too short");
+        }
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, data.length - 4);
+        int storedCrc = ((data[data.length - 4] & 0xFF) << 24) | ((data[data.length - 3] & 0xFF) << 16)
+                | ((data[data.length - 2] & 0xFF) << 8) | (data[data.length - 1] & 0xFF);
+        if ((int) crc.getValue() != storedCrc) {
+            throw new IOException("Deck index checksum mismatch");
+        }
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data, 0, data.length - 4));
+        if (in.readUnsignedShort() != MAGIC || in.readUnsignedByte() != VERSION) {
+            throw new IOException("Unknown deck index format");
+        }
+        DeckIndex index = new DeckIndex();
+        int count = in.readUnsignedShort();
+        for (int i = 0; i < count; i++) {
+            long id = in.readLong();
+            String name = in.readUTF();
+            int faceCount = in.readUnsignedShort();
+            long created = in.readLong();
+            index.entries.add(new Entry(id, name, faceCount, created));
+        }
+        return index;
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.memorycardflip;
+
+import android.content.Context;
+import android.util.AtomicFile;
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/**
+ * App-private store of imported photo decks. Each deck is a directory of
+ * square card-sized JPEG thumbnails named by face number, listed in a
+ * DeckIndex written through AtomicFile. Games only ever read thumbnails.
+ */
+public class DeckStore {
+
+    private static final String TAG = "DeckStore";
+    private static final String DIR_NAME = "decks";
+    private static final String INDEX_NAME = "index.bin";
+    static final String THUMBNAIL_SUFFIX = ".jpg";
+
+    private final File root;
+    private final AtomicFile indexFile;
+    private DeckIndex index;
+
+    public DeckStore(Context context) {
+        root = new File(context.getFilesDir(), DIR_NAME);
+        indexFile = new AtomicFile(new File(root, INDEX_NAME));
+    }
+
+    /**
+     * @return The index, read from disk on first use. Do not modify it.
+     */
+    public synchronized DeckIndex getIndex() {
+        if (index == null) {
+            index = readIndex();
+        }
+        return index;
+    }
+
+    public synchronized DeckIndex.Entry find(long id) {
+        return getIndex().find(id);
+    }
+
+    /**
+     * @return Directory for a deck's thumbnails, created if needed
+     */
+    public File deckDir(long id) throws IOException {
+        File dir = new File(root, Long.toString(id));
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Could not create " + dir);
+        }
+        return dir;
+    }
+
+    public File thumbnail(long id, int face) {
+        return new File(new File(root, Long.toString(id)), face + THUMBNAIL_SUFFIX);
+    }
+
+    /**
+     * @return Thumbnail files of the deck's faces, in face order
+     */
+    public File[] thumbnails(DeckIndex.Entry deck) {
+        File[] files = new File[deck.faceCount];
+        for (int i = 0; i < files.length; i++) {
+            files[i] = thumbnail(deck.id, i);
+        }
+        return files;
+    }
+
+    /**
+     * Lists a deck whose thumbnails are all written
+     */
+    public synchronized void add(DeckIndex.Entry deck) throws IOException {
+        getIndex().add(deck);
+        writeIndex();
+    }
+
+    public synchronized void delete(long id) {
+        if (getIndex().remove(id)) {
+            try {
+                writeIndex();
+            } catch (IOException e) {
+                Log.w(TAG, "Could not write deck index", e);
+            }
+        }
+        deleteDir(new File(root, Long.toString(id)));
+    }
+
+    /**
+     * Removes a deck directory that never made it into the index
+     */
+    void deleteDir(File dir) {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        dir.delete();
+    }
+
+    private DeckIndex readIndex() {
+        try {
+            return DeckIndex.decode(indexFile.readFully());
+        } catch (FileNotFoundException e) {
+            return new DeckIndex();
+        } catch (IOException e) {
+            Log.w(TAG, "Discarding unreadable deck index", e);
+            return new DeckIndex();
+        }
+    }
+
+    private void writeIndex() throws IOException {
+        if (!root.isDirectory() && !root.mkdirs()) {
+            throw new IOException("Could not create " + root);
+        }
+        FileOutputStream out = null;
+        try {
+            out = indexFile.startWrite();
+            out.write(index.encode());
+            indexFile.finishWrite(out);
+        } catch (IOException e) {
+            if (out != null) {
+                indexFile.failWrite(out);
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.memorycardflip;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+/**
+ * One bitmap holding every face of a deck plus the card back, each rasterized
+ * at the exact cell size into its own slot. Slots are laid out in a near-square
+ * grid with a transparent gutter so filtering at zoom does not bleed between
+ * neighbours. Built by FaceCache; immutable once built, until FaceCache
+ * releases it under memory pressure.
+ */
+public class FaceAtlas {
+
+    static final int GUTTER = 2;
+
+    private final String deckKey;
+    private final int faceCount;
+    private final int cellSize;
+    private final int columns;
+    private final Bitmap bitmap;
+    private final long buildMillis;
+    private final Rect slotRect = new Rect();
+    private boolean released = false;
+
+    FaceAtlas(String deckKey, int faceCount, int cellSize, Bitmap bitmap, long buildMillis) {
+        this.deckKey = deckKey;
+        this.faceCount = faceCount;
+        this.cellSize = cellSize;
+        this.columns = columnsFor(faceCount + 1);
+        this.bitmap = bitmap;
+        this.buildMillis = buildMillis;
+    }
+
+    /**
+     * @param deckKey Identifies the faces and back, see FaceCache.deckKey()
+     * @return true if this atlas was built for the deck at the cell size
+     */
+    public boolean matches(String deckKey, int cellSize) {
+        return this.cellSize == cellSize && this.deckKey.equals(deckKey);
+    }
+
+    public int getCellSize() {
+        return cellSize;
+    }
+
+    public int getByteCount() {
+        return bitmap.getByteCount();
+    }
+
+    public long getBuildMillis() {
+        return buildMillis;
+    }
+
+    /**
+     * @return true once the bitmap has been freed; the atlas must not be drawn then
+     */
+    public boolean isReleased() {
+        return released;
+    }
+
+    /**
+     * Frees the bitmap right away instead of waiting for it to be collected.
+     * Main thread only, like drawing.
+     */
+    void release() {
+        released = true;
+        bitmap.recycle();
+    }
+
+    /**
+     * Draws the deck's face in the given bounds. Not thread-safe; main thread only.
+     */
+    public void drawFace(Canvas canvas, int face, Rect bounds, Paint paint) {
+        drawSlot(canvas, face, bounds, paint);
+    }
+
+    /**
+     * Draws the card back, which sits in the slot after the last face
+     */
+    public void drawBack(Canvas canvas, Rect bounds, Paint paint) {
+        drawSlot(canvas, faceCount, bounds, paint);
+    }
+
+    private void drawSlot(Canvas canvas, int slot, Rect bounds, Paint paint) {
+        int left = slotLeft(slot, columns, cellSize);
+        int top = slotTop(slot, columns, cellSize);
+        slotRect.set(left, top, left + cellSize, top + cellSize);
+        canvas.drawBitmap(bitmap, slotRect, bounds, paint);
+    }
+
+    /**
+     * Columns of the smallest near-square grid holding the slots
+     */
+    static int columnsFor(int slots) {
+        return Math.max(1, (int) Math.ceil(Math.sqrt(slots)));
+    }
+
+    static int slotLeft(int slot, int columns, int cellSize) {
+        return GUTTER + (slot % columns) * (cellSize + GUTTER);
+    }
+
+    static int slotTop(int slot, int columns, int cellSize) {
+        return GUTTER + (slot / columns) * (cellSize + GUTTER);
+    }
+
+    /**
+     * @return Width and height of the atlas bitmap, gutters included
+     */
+    static int atlasWidth(int slots, int cellSize) {
+        int columns = columnsFor(slots);
+        return GUTTER + columns * (cellSize + GUTTER);
+    }
+
+    static int atlasHeight(int slots, int cellSize) {
+        int columns = columnsFor(slots);
+        int rows = (slots + columns - 1) / columns;
+        return GUTTER + rows * (cellSize + GUTTER);
+    }
+}
@@ -0,0 +1,376 @@
+package com.example.memorycardflip;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.PixelFormat;
+import android.graphics.Rect;
+import android.graphics.drawable.Drawable;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+import android.util.LruCache;
+import android.util.SparseLongArray;
+
+import androidx.appcompat.content.res.AppCompatResources;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Memory cache of card faces decoded at the size of a grid cell. Faces are
+ * decoded on a background thread, PNGs with subsampling and vector drawables
+ * rasterized straight to the cell size, so a flip is just a cache lookup.
+ * Whole decks, built-in or imported thumbnails, can also be packed into a
+ * FaceAtlas, of which the latest is kept. In reduced-footprint mode, for
+ * low-RAM devices, the cache is half the size, the atlas is packed at three
+ * quarters of the cell size and opaque faces are decoded to 16-bit bitmaps.
+ */
+public class FaceCache {
+
+    private static final String TAG = "FaceCache";
+    private static final float REDUCED_ATLAS_SCALE = 0.75f;
+
+    public interface AtlasListener {
+        /**
+         * Called on the main thread
+         */
+        void onAtlasReady(FaceAtlas atlas);
+    }
+
+    private final Context context;
+    private final boolean reducedFootprint;
+    private final LruCache<Long, Bitmap> cache;
+    private final ExecutorService decoder = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    // Most recent cache key decoded for each resource, used when the exact size is missing
+    private final SparseLongArray latestKeys = new SparseLongArray();
+
+    // Last atlas built; boards of the same deck and cell size share it
+    private volatile FaceAtlas atlas;
+
+    public FaceCache(Context context, boolean reducedFootprint) {
+        this.context = context.getApplicationContext();
+        this.reducedFootprint = reducedFootprint;
+
+        // Use an eighth of the app's heap for decoded faces, a sixteenth on low-RAM devices
+        int maxKb = (int) (Runtime.getRuntime().maxMemory() / 1024 / (reducedFootprint ? 16 : 8));
+        cache = new LruCache<Long, Bitmap>(maxKb) {
+            @Override
+            protected int sizeOf(Long key, Bitmap bitmap) {
+                return bitmap.getByteCount() / 1024;
+            }
+        };
+    }
+
+    /**
+     * @return The decoded face, or null if it is not cached yet. A face decoded
+     * for a larger cell (e.g. during startup warmup) is returned while the exact
+     * size is still missing, since CENTER_CROP can scale it down.
+     */
+    public Bitmap get(int resId, int width, int height) {
+        Bitmap bitmap = cache.get(key(resId, width, height));
+        if (bitmap != null) {
+            return bitmap;
+        }
+
+        long latestKey;
+        synchronized (latestKeys) {
+            latestKey = latestKeys.get(resId, -1L);
+        }
+        if (latestKey == -1L) {
+            return null;
+        }
+        bitmap = cache.get(latestKey);
+        if (bitmap != null && bitmap.getWidth() >= width && bitmap.getHeight() >= height) {
+            return bitmap;
+        }
+        return null;
+    }
+
+    /**
+     * Decodes every face that is not cached yet for the given cell size.
+     */
+    public void prefetch(int[] resIds, int width, int height) {
+        prefetch(resIds, width, height, null);
+    }
+
+    /**
+     * Decodes every face that is not cached yet for the given cell size.
+     * @param onReady Optional callback run on the main thread once all faces are cached
+     */
+    public void prefetch(int[] resIds, int width, int height, Runnable onReady) {
+        if (width <= 0 || height <= 0) {
+            return;
+        }
+        final int[] ids = resIds.clone();
+        decoder.execute(() -> {
+            for (int resId : ids) {
+                long key = key(resId, width, height);
+                if (cache.get(key) != null) {
+                    continue;
+                }
+                try {
+                    Bitmap bitmap = decode(resId, width, height);
+                    if (bitmap != null) {
+                        cache.put(key, bitmap);
+                        synchronized (latestKeys) {
+                            latestKeys.put(resId, key);
+                        }
+                    }
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
+            }
+            if (onReady != null) {
+                mainHandler.post(onReady);
+            }
+        });
+    }
+
+    /**
+     * @return Key identifying a deck of drawable resources and its back
+     */
+    public static String deckKey(int[] resIds, int backResId) {
+        return "res:" + Arrays.toString(resIds) + ":" + backResId;
+    }
+
+    /**
+     * @return Key identifying a deck of thumbnail files and its back
+     */
+    public static String deckKey(File[] faceFiles, int backResId) {
+        return "files:" + Arrays.toString(faceFiles) + ":" + backResId;
+    }
+
+    /**
+     * @return The atlas for the deck at the cell size, or null if it is not built
+     */
+    public FaceAtlas getAtlas(String deckKey, int cellSize) {
+        FaceAtlas current = atlas;
+        return current != null && current.matches(deckKey, atlasCellSize(cellSize)) ? current : null;
+    }
+
+    /**
+     * @return Slot size of the atlas packed for a board cell size
+     */
+    public int atlasCellSize(int cellSize) {
+        return reducedFootprint ? Math.max(1, Math.round(cellSize * REDUCED_ATLAS_SCALE)) : cellSize;
+    }
+
+    /**
+     * Packs the deck's faces and the back into one atlas at the cell size on the
+     * decoder thread, unless the current atlas already matches
+     */
+    public void buildAtlas(int[] resIds, int backResId, int cellSize, AtlasListener listener) {
+        buildAtlas(deckKey(resIds, backResId), resIds.clone(), null, backResId, cellSize, listener);
+    }
+
+    /**
+     * Like buildAtlas() for resources, with faces decoded from thumbnail files
+     */
+    public void buildAtlas(File[] faceFiles, int backResId, int cellSize, AtlasListener listener) {
+        buildAtlas(deckKey(faceFiles, backResId), null, faceFiles.clone(), backResId, cellSize, listener);
+    }
+
+    private void buildAtlas(String deckKey, int[] resIds, File[] faceFiles, int backResId, int cellSize,
+                            AtlasListener listener) {
+        if (cellSize <= 0) {
+            return;
+        }
+        decoder.execute(() -> {
+            FaceAtlas built = getAtlas(deckKey, cellSize);
+            if (built == null) {
+                try {
+                    built = packAtlas(deckKey, resIds, faceFiles, backResId, atlasCellSize(cellSize));
+                } catch (Exception | OutOfMemoryError e) {
+                    // Faces keep coming from the per-face cache
+                    Log.w(TAG, "Could not build face atlas", e);
+                    return;
+                }
+                atlas = built;
+            }
+            final FaceAtlas ready = built;
+            mainHandler.post(() -> listener.onAtlasReady(ready));
+        });
+    }
+
+    /**
+     * Exactly one of resIds and faceFiles is set
+     */
+    private FaceAtlas packAtlas(String deckKey, int[] resIds, File[] faceFiles, int backResId, int cellSize) {
+        long start = SystemClock.elapsedRealtime();
+        int faceCount = resIds != null ? resIds.length : faceFiles.length;
+        int slots = faceCount + 1;
+        int columns = FaceAtlas.columnsFor(slots);
+        Drawable back = AppCompatResources.getDrawable(context, backResId);
+        // Photo thumbnails are opaque JPEGs, so with an opaque back the atlas needs no alpha
+        boolean opaque = faceFiles != null && back != null && back.getOpacity() == PixelFormat.OPAQUE;
+        Bitmap.Config config = reducedFootprint && opaque ? Bitmap.Config.RGB_565 : Bitmap.Config.ARGB_8888;
+        Bitmap bitmap = Bitmap.createBitmap(FaceAtlas.atlasWidth(slots, cellSize),
+                FaceAtlas.atlasHeight(slots, cellSize), config);
+        Canvas canvas = new Canvas(bitmap);
+        Paint paint = new Paint(Paint.FILTER_BITMAP_FLAG);
+        Rect src = new Rect();
+        Rect dst = new Rect();
+
+        for (int slot = 0; slot < faceCount; slot++) {
+            int left = FaceAtlas.slotLeft(slot, columns, cellSize);
+            int top = FaceAtlas.slotTop(slot, columns, cellSize);
+            dst.set(left, top, left + cellSize, top + cellSize);
+            Bitmap face = resIds != null ? get(resIds[slot], cellSize, cellSize) : null;
+            boolean cached = face != null;
+            if (!cached) {
+                face = resIds != null ? decode(resIds[slot], cellSize, cellSize)
+                        : decodeFile(faceFiles[slot], cellSize);
+            }
+            if (face == null) {
+                continue;
+            }
+            centerCrop(face.getWidth(), face.getHeight(), src);
+            canvas.drawBitmap(face, src, dst, paint);
+            if (!cached) {
+                face.recycle();
+            }
+        }
+
+        // The back is stretched to the cell, as BoardView draws it
+        if (back != null) {
+            int left = FaceAtlas.slotLeft(faceCount, columns, cellSize);
+            int top = FaceAtlas.slotTop(faceCount, columns, cellSize);
+            back.setBounds(left, top, left + cellSize, top + cellSize);
+            back.draw(canvas);
+        }
+
+        long millis = SystemClock.elapsedRealtime() - start;
+        Log.i(TAG, "Face atlas " + bitmap.getWidth() + "x" + bitmap.getHeight() + " for " + slots
+                + " slots at " + cellSize + " px, " + config + ": " + bitmap.getByteCount() / 1024 + " KB in "
+                + millis + " ms");
+        return new FaceAtlas(deckKey, faceCount, cellSize, bitmap, millis);
+    }
+
+    /**
+     * Decodes a thumbnail, subsampled when it is much larger than the cell
+     */
+    private Bitmap decodeFile(File file, int size) {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        if (reducedFootprint) {
+            options.inPreferredConfig = Bitmap.Config.RGB_565;
+        }
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeFile(file.getPath(), options);
+        if (options.outWidth <= 0 || options.outHeight <= 0) {
+            return null;
+        }
+        options.inSampleSize = calculateInSampleSize(options.outWidth, options.outHeight, size, size);
+        options.inJustDecodeBounds = false;
+        return BitmapFactory.decodeFile(file.getPath(), options);
+    }
+
+    /**
+     * Sets src to the square part of a bitmap that CENTER_CROP would show in a square cell
+     */
+    private static void centerCrop(int width, int height, Rect src) {
+        int side = Math.min(width, height);
+        int left = (width - side) / 2;
+        int top = (height - side) / 2;
+        src.set(left, top, left + side, top + side);
+    }
+
+    public void clear() {
+        cache.evictAll();
+        atlas = null;
+    }
+
+    /**
+     * Evicts the least recently used faces until the cache holds at most the
+     * fraction of its capacity. Boards drawing from an atlas do not need them.
+     * @return Bytes of bitmaps dropped
+     */
+    public long trimFaces(float keepFraction) {
+        int before = cache.size();
+        cache.trimToSize((int) (cache.maxSize() * keepFraction));
+        return (long) (before - cache.size()) * 1024;
+    }
+
+    /**
+     * Frees the atlas bitmap; renderers drawing it pack a new one when next drawn.
+     * Main thread only.
+     * @return Bytes freed
+     */
+    public long releaseAtlas() {
+        FaceAtlas current = atlas;
+        if (current == null || current.isReleased()) {
+            return 0;
+        }
+        atlas = null;
+        long bytes = current.getByteCount();
+        current.release();
+        return bytes;
+    }
+
+    public void shutdown() {
+        decoder.shutdownNow();
+        cache.evictAll();
+        atlas = null;
+    }
+
+    private Bitmap decode(int resId, int width, int height) {
+        // Bitmap resources: read bounds first, then subsample to the cell size
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        options.inScaled = false;
+        BitmapFactory.decodeResource(context.getResources(), resId, options);
+
+        if (options.outWidth > 0 && options.outHeight > 0) {
+            options.inSampleSize = calculateInSampleSize(options.outWidth, options.outHeight, width, height);
+            options.inJustDecodeBounds = false;
+            if (reducedFootprint) {
+                // Honoured for opaque images only; faces with alpha stay 32-bit
+                options.inPreferredConfig = Bitmap.Config.RGB_565;
+            }
+            return BitmapFactory.decodeResource(context.getResources(), resId, options);
+        }
+
+        // Vector drawables: rasterize once, keeping aspect so CENTER_CROP still fills the cell
+        Drawable drawable = AppCompatResources.getDrawable(context, resId);
+        if (drawable == null) {
+            return null;
+        }
+        int outWidth = width;
+        int outHeight = height;
+        int intrinsicWidth = drawable.getIntrinsicWidth();
+        int intrinsicHeight = drawable.getIntrinsicHeight();
+        if (intrinsicWidth > 0 && intrinsicHeight > 0) {
+            float scale = Math.max((float) width / intrinsicWidth, (float) height / intrinsicHeight);
+            outWidth = Math.max(1, Math.round(intrinsicWidth * scale));
+            outHeight = Math.max(1, Math.round(intrinsicHeight * scale));
+        }
+        Bitmap bitmap = Bitmap.createBitmap(outWidth, outHeight, Bitmap.Config.ARGB_8888);
+        Canvas canvas = new Canvas(bitmap);
+        drawable.setBounds(0, 0, outWidth, outHeight);
+        drawable.draw(canvas);
+        return bitmap;
+    }
+
+    /**
+     * Largest power of two that keeps both sides at least as big as the target,
+     * so CENTER_CROP still has enough pixels to fill the cell.
+     */
+    static int calculateInSampleSize(int srcWidth, int srcHeight, int reqWidth, int reqHeight) {
+        int sampleSize = 1;
+        while (srcWidth / (sampleSize * 2) >= reqWidth && srcHeight / (sampleSize * 2) >= reqHeight) {
+            sampleSize *= 2;
+        }
+        return sampleSize;
+    }
+
+    private static long key(int resId, int width, int height) {
+        return ((long) resId << 32) | ((long) (width & 0xFFFF) << 16) | (height & 0xFFFF);
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.memorycardflip;
+
+import android.graphics.Canvas;
+import android.graphics.Rect;
+
+/**
+ * Draws card faces for BoardView. Implementations must not allocate per call,
+ * since every visible face-up card is drawn on each frame it is invalidated.
+ */
+public interface FaceRenderer {
+
+    /**
+     * Called when the unzoomed cell size changes so faces can be prepared for it
+     */
+    void onCellSizeChanged(int cellSize);
+
+    /**
+     * Draws a face into the given cell bounds
+     * @return false if the face is not available and the back should be drawn
+     */
+    boolean drawFace(Canvas canvas, int face, Rect bounds);
+
+    /**
+     * Draws the card back into the given cell bounds
+     * @return false to let the board draw its own rasterized back
+     */
+    boolean drawBack(Canvas canvas, Rect bounds);
+}
@@ -0,0 +1,126 @@
+package com.example.memorycardflip;
+
+import android.app.Activity;
+import android.graphics.Color;
+import android.os.Build;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.view.Choreographer;
+import android.view.FrameMetrics;
+import android.view.Gravity;
+import android.view.ViewGroup;
+import android.view.Window;
+import android.widget.FrameLayout;
+import android.widget.TextView;
+
+import java.util.Locale;
+
+/**
+ * Feeds an activity's frame durations into the shared FrameStats and shows
+ * them in a small overlay. Uses the platform FrameMetrics API on API 24+ and
+ * vsync-to-vsync deltas from Choreographer on older devices.
+ */
+public class FrameMetricsMonitor {
+
+    private static final long OVERLAY_INTERVAL_MS = 500;
+
+    private final Activity activity;
+    private final FrameStats stats;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Runnable overlayUpdater = this::updateOverlay;
+
+    private HandlerThread metricsThread;
+    private Window.OnFrameMetricsAvailableListener metricsListener;
+    private Choreographer.FrameCallback fallbackCallback;
+    private long lastFrameNanos = 0;
+    private TextView overlay;
+
+    public FrameMetricsMonitor(Activity activity, FrameStats stats) {
+        this.activity = activity;
+        this.stats = stats;
+    }
+
+    public void start() {
+        float refreshRate = activity.getWindowManager().getDefaultDisplay().getRefreshRate();
+        if (refreshRate > 0) {
+            stats.setFrameBudgetNanos((long) (1_000_000_000L / refreshRate));
+        }
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+            metricsThread = new HandlerThread("FrameMetrics");
+            metricsThread.start();
+            metricsListener = (window, frameMetrics, dropCount) ->
+                    stats.addFrame(frameMetrics.getMetric(FrameMetrics.TOTAL_DURATION));
+            activity.getWindow().addOnFrameMetricsAvailableListener(
+                    metricsListener, new Handler(metricsThread.getLooper()));
+        } else {
+            lastFrameNanos = 0;
+            fallbackCallback = frameTimeNanos -> {
+                if (lastFrameNanos != 0) {
+                    stats.addFrame(frameTimeNanos - lastFrameNanos);
+                }
+                lastFrameNanos = frameTimeNanos;
+                Choreographer.getInstance().postFrameCallback(fallbackCallback);
+            };
+            Choreographer.getInstance().postFrameCallback(fallbackCallback);
+        }
+
+        attachOverlay();
+        mainHandler.post(overlayUpdater);
+    }
+
+    public void stop() {
+        mainHandler.removeCallbacks(overlayUpdater);
+        if (metricsListener != null && Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+            try {
+                activity.getWindow().removeOnFrameMetricsAvailableListener(metricsListener);
+            } catch (IllegalArgumentException e) {
+                // Listener was already removed with the window
+            }
+            metricsListener = null;
+        }
+        if (metricsThread != null) {
+            metricsThread.quitSafely();
+            metricsThread = null;
+        }
+        if (fallbackCallback != null) {
+            Choreographer.getInstance().removeFrameCallback(fallbackCallback);
+            fallbackCallback = null;
+        }
+        if (overlay != null) {
+            ViewGroup parent = (ViewGroup) overlay.getParent();
+            if (parent != null) {
+                parent.removeView(overlay);
+            }
+            overlay = null;
+        }
+    }
+
+    private void attachOverlay() {
+        ViewGroup content = activity.findViewById(android.R.id.content);
+        if (content == null) {
+            return;
+        }
+        overlay = new TextView(activity);
+        overlay.setTextColor(Color.WHITE);
+        overlay.setBackgroundColor(0x99000000);
+        overlay.setTextSize(11f);
+        overlay.setPadding(12, 8, 12, 8);
+        FrameLayout.LayoutParams params = new FrameLayout.LayoutParams(
+                ViewGroup.LayoutParams.WRAP_CONTENT, ViewGroup.LayoutParams.WRAP_CONTENT,
+                Gravity.TOP | Gravity.END);
+        content.addView(overlay, params);
+    }
+
+    private void updateOverlay() {
+        if (overlay != null) {
+            overlay.setText(String.format(Locale.US,
+                    "p50 %.1f ms  p95 %.1f ms  p99 %.1f ms\njank %d/%d  phase %s",
+                    stats.getWindowPercentileMs(50), stats.getWindowPercentileMs(95),
+                    stats.getWindowPercentileMs(99), stats.getWindowJankyCount(),
+                    stats.getWindowFrameCount(), FrameStats.getPhaseName(stats.getPhase())));
+        }
+        mainHandler.postDelayed(overlayUpdater, OVERLAY_INTERVAL_MS);
+    }
+}
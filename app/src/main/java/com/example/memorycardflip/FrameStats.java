@@ -0,0 +1,185 @@
+package com.example.memorycardflip;
+
+import java.util.Locale;
+
+/**
+ * Plain-Java frame duration statistics. Keeps a rolling window of recent
+ * frames for the live overlay plus whole-session histograms per game phase,
+ * all in fixed-size primitive arrays so recording a frame never allocates.
+ */
+public class FrameStats {
+
+    // Game phases frames are attributed to
+    public static final int PHASE_IDLE = 0;
+    public static final int PHASE_MENU = 1;
+    public static final int PHASE_BOARD_SETUP = 2;
+    public static final int PHASE_FLIP = 3;
+    public static final int PHASE_MATCH_RESOLUTION = 4;
+    public static final int PHASE_GAME_OVER_DIALOG = 5;
+    private static final String[] PHASE_NAMES = {
+        "idle", "menu", "board_setup", "flip", "match_resolution", "game_over_dialog"
+    };
+
+    // Quarter-millisecond buckets up to 100 ms, the last one collects everything longer
+    private static final long BUCKET_NANOS = 250_000L;
+    private static final int BUCKETS = 401;
+
+    private final int windowSize;
+    private final int[] window;
+    private final long[] windowHistogram = new long[BUCKETS];
+    private int windowPosition = 0;
+    private int windowCount = 0;
+    private int windowJanky = 0;
+
+    private final long[][] phaseHistograms = new long[PHASE_NAMES.length][BUCKETS];
+    private final long[] phaseFrames = new long[PHASE_NAMES.length];
+    private final long[] phaseJanky = new long[PHASE_NAMES.length];
+
+    private long frameBudgetNanos;
+    private volatile int phase = PHASE_IDLE;
+
+    /**
+     * @param windowSize Number of recent frames in the rolling window
+     * @param frameBudgetNanos Frames longer than this count as janky
+     */
+    public FrameStats(int windowSize, long frameBudgetNanos) {
+        this.windowSize = windowSize;
+        this.window = new int[windowSize];
+        this.frameBudgetNanos = frameBudgetNanos;
+    }
+
+    public void setPhase(int phase) {
+        this.phase = phase;
+    }
+
+    public int getPhase() {
+        return phase;
+    }
+
+    public synchronized void setFrameBudgetNanos(long frameBudgetNanos) {
+        this.frameBudgetNanos = frameBudgetNanos;
+    }
+
+    /**
+     * Records one frame against the current phase
+     */
+    public synchronized void addFrame(long durationNanos) {
+        int bucket = (int) Math.min(BUCKETS - 1, durationNanos / BUCKET_NANOS);
+        boolean janky = durationNanos > frameBudgetNanos;
+
+        // Rolling window: evict the oldest frame once full
+        if (windowCount == windowSize) {
+            int evicted = window[windowPosition];
+            windowHistogram[evicted & 0xFFFF]--;
+            if (evicted < 0) {
+                windowJanky--;
+            }
+        } else {
+            windowCount++;
+        }
+        // Bucket in the low bits, sign bit marks jank
+        window[windowPosition] = janky ? (bucket | Integer.MIN_VALUE) : bucket;
+        windowHistogram[bucket]++;
+        if (janky) {
+            windowJanky++;
+        }
+        windowPosition = (windowPosition + 1) % windowSize;
+
+        int currentPhase = phase;
+        phaseHistograms[currentPhase][bucket]++;
+        phaseFrames[currentPhase]++;
+        if (janky) {
+            phaseJanky[currentPhase]++;
+        }
+    }
+
+    /**
+     * @param percentile Between 0 and 100
+     * @return Upper bound in milliseconds of the bucket holding the percentile of the rolling window
+     */
+    public synchronized float getWindowPercentileMs(double percentile) {
+        return percentileMs(windowHistogram, windowCount, percentile);
+    }
+
+    public synchronized int getWindowFrameCount() {
+        return windowCount;
+    }
+
+    public synchronized int getWindowJankyCount() {
+        return windowJanky;
+    }
+
+    public synchronized long getPhaseFrameCount(int phase) {
+        return phaseFrames[phase];
+    }
+
+    public synchronized long getPhaseJankyCount(int phase) {
+        return phaseJanky[phase];
+    }
+
+    public synchronized float getPhasePercentileMs(int phase, double percentile) {
+        return percentileMs(phaseHistograms[phase], phaseFrames[phase], percentile);
+    }
+
+    /**
+     * Formats the session as a JSON object with p50/p95/p99 and jank per phase
+     */
+    public synchronized String toJson(long sessionStartMillis, long sessionEndMillis, String device) {
+        StringBuilder json = new StringBuilder(1024);
+        json.append("{\"sessionStartMillis\":").append(sessionStartMillis)
+                .append(",\"sessionEndMillis\":").append(sessionEndMillis)
+                .append(",\"device\":\"").append(escape(device)).append('"')
+                .append(",\"frameBudgetMs\":").append(format(frameBudgetNanos / 1_000_000f))
+                .append(",\"phases\":{");
+        boolean first = true;
+        for (int p = 0; p < PHASE_NAMES.length; p++) {
+            if (phaseFrames[p] == 0) {
+                continue;
+            }
+            if (!first) {
+                json.append(',');
+            }
+            first = false;
+            json.append('"').append(PHASE_NAMES[p]).append("\":{")
+                    .append("\"frames\":").append(phaseFrames[p])
+                    .append(",\"janky\":").append(phaseJanky[p])
+                    .append(",\"p50Ms\":").append(format(percentileMs(phaseHistograms[p], phaseFrames[p], 50)))
+                    .append(",\"p95Ms\":").append(format(percentileMs(phaseHistograms[p], phaseFrames[p], 95)))
+                    .append(",\"p99Ms\":").append(format(percentileMs(phaseHistograms[p], phaseFrames[p], 99)))
+                    .append('}');
+        }
+        json.append("}}");
+        return json.toString();
+    }
+
+    public static String getPhaseName(int phase) {
+        return PHASE_NAMES[phase];
+    }
+
+    private static float percentileMs(long[] histogram, long total, double percentile) {
+        if (total == 0) {
+            return 0f;
+        }
+        long rank = (long) Math.ceil(total * percentile / 100.0);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += histogram[i];
+            if (seen >= rank) {
+                return bucketUpperMs(i);
+            }
+        }
+        return bucketUpperMs(BUCKETS - 1);
+    }
+
+    private static float bucketUpperMs(int bucket) {
+        return (bucket + 1) * BUCKET_NANOS / 1_000_000f;
+    }
+
+    private static String format(float value) {
+        return String.format(Locale.US, "%.2f", value);
+    }
+
+    private static String escape(String value) {
+        return value == null ? "" : value.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.memorycardflip;
+
+/**
+ * One finished game as stored in the leaderboard. A timed game that ran out
+ * of time is finished but not cleared.
+ */
+public class GameResult {
+
+    public final String mode;
+    public final int columns;
+    public final int rows;
+    public final int score;
+    public final int moves;
+    public final int mismatches;
+    public final long durationMillis;
+    public final long seed;
+    public final boolean cleared;
+    public final long finishedAt;
+
+    public GameResult(String mode, int columns, int rows, int score, int moves, int mismatches,
+                      long durationMillis, long seed, boolean cleared, long finishedAt) {
+        this.mode = mode;
+        this.columns = columns;
+        this.rows = rows;
+        this.score = score;
+        this.moves = moves;
+        this.mismatches = mismatches;
+        this.durationMillis = durationMillis;
+        this.seed = seed;
+        this.cleared = cleared;
+        this.finishedAt = finishedAt;
+    }
+
+    /**
+     * Scores are only comparable on the same kind of board
+     */
+    public static String boardKey(String mode, int columns, int rows) {
+        return mode + ":" + columns + "x" + rows;
+    }
+
+    public String boardKey() {
+        return boardKey(mode, columns, rows);
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.memorycardflip;
+
+import androidx.lifecycle.ViewModel;
+
+import java.util.Random;
+import java.util.concurrent.Executor;
+
+/**
+ * Holds the game across configuration changes, so a rotated or resized
+ * MainActivity rebinds to the same engine instead of dealing a new board.
+ */
+public class GameViewModel extends ViewModel {
+
+    private final GameEngine engine = new GameEngine();
+    private String mode;
+    private int columns;
+    private int rows;
+    private GameRecording recording;
+    private final GameClock clock = new GameClock();
+    private final PairStream pairStream = new PairStream();
+    private long gameStartMillis = 0;
+
+    // Next board, dealt in the background while the game over dialog shows
+    private int[] preparedFaces = new int[0];
+    private int preparedCards = 0;
+    private long preparedSeed = 0;
+    private volatile boolean prepared = false;
+    private volatile boolean preparing = false;
+
+    public GameEngine getEngine() {
+        return engine;
+    }
+
+    /**
+     * @return true once a board has been dealt or restored into the engine
+     */
+    public boolean hasGame() {
+        return mode != null && engine.getNumCards() > 0;
+    }
+
+    public void setBoard(String mode, int columns, int rows) {
+        this.mode = mode;
+        this.columns = columns;
+        this.rows = rows;
+    }
+
+    public String getMode() {
+        return mode;
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * @return Flips of the current game, or null for a game restored from a save
+     */
+    public GameRecording getRecording() {
+        return recording;
+    }
+
+    public void setRecording(GameRecording recording) {
+        this.recording = recording;
+    }
+
+    /**
+     * @return elapsedRealtime() when the game was dealt, 0 if unknown
+     */
+    public long getGameStartMillis() {
+        return gameStartMillis;
+    }
+
+    public void setGameStartMillis(long gameStartMillis) {
+        this.gameStartMillis = gameStartMillis;
+    }
+
+    /**
+     * Clock of a timed or speedrun game, kept running through rotation
+     */
+    public GameClock getClock() {
+        return clock;
+    }
+
+    /**
+     * Upcoming pairs of an endless game
+     */
+    public PairStream getPairStream() {
+        return pairStream;
+    }
+
+    /**
+     * Deals the next board on the executor so play again only has to rebind it
+     */
+    public void prepareNextBoard(Executor executor, int numCards, int numFaces, long seed) {
+        if (preparing || (prepared && preparedCards == numCards)) {
+            return;
+        }
+        preparing = true;
+        prepared = false;
+        if (preparedFaces.length < numCards) {
+            preparedFaces = new int[numCards];
+        }
+        final int[] faces = preparedFaces;
+        executor.execute(() -> {
+            GameEngine.deal(faces, numCards, numFaces, new Random(seed));
+            preparedCards = numCards;
+            preparedSeed = seed;
+            preparing = false;
+            // Volatile write publishes the dealt board to the main thread
+            prepared = true;
+        });
+    }
+
+    /**
+     * Starts the prepared board if there is one for this board size
+     * @return false if the caller has to deal a board itself
+     */
+    public boolean startPreparedBoard(int numCards) {
+        if (!prepared || preparedCards != numCards) {
+            return false;
+        }
+        prepared = false;
+        engine.newGame(preparedFaces, numCards, preparedSeed);
+        return true;
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.memorycardflip;
+
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.Rect;
+import android.graphics.Typeface;
+
+/**
+ * Procedural card faces for custom-size boards. Each face id maps to a unique
+ * color, shape and glyph combination drawn straight onto the board canvas from
+ * shared unit paths, so faces cost no bitmap memory however big the board is.
+ */
+public class GeneratedFaceRenderer implements FaceRenderer {
+
+    private static final int[] COLORS = {
+        0xFFE53935, 0xFF1E88E5, 0xFF43A047, 0xFFFB8C00, 0xFF8E24AA, 0xFF00ACC1,
+        0xFF6D4C41, 0xFFD81B60, 0xFF3949AB, 0xFF7CB342, 0xFFFDD835, 0xFF546E7A
+    };
+    private static final char[] GLYPHS = "ABCDEFGHJKLMNPQRSTUVWXYZ23456789".toCharArray();
+    private static final int SHAPE_COUNT = 6;
+    private static final int BACKGROUND_COLOR = 0xFFFFFFFF;
+
+    private final Path[] shapes;
+    private final Paint backgroundPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint shapePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint glyphPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+
+    public GeneratedFaceRenderer() {
+        shapes = new Path[] {
+            circle(), polygon(4, 45f), polygon(3, -90f), polygon(4, 0f), polygon(6, 0f), star()
+        };
+        backgroundPaint.setColor(BACKGROUND_COLOR);
+        glyphPaint.setColor(0xFFFFFFFF);
+        glyphPaint.setTextAlign(Paint.Align.CENTER);
+        glyphPaint.setTypeface(Typeface.DEFAULT_BOLD);
+    }
+
+    /**
+     * @return How many distinct faces can be generated
+     */
+    public static int getMaxFaces() {
+        return COLORS.length * SHAPE_COUNT * GLYPHS.length;
+    }
+
+    @Override
+    public void onCellSizeChanged(int cellSize) {
+        // Nothing to prepare, faces are drawn directly
+    }
+
+    @Override
+    public boolean drawFace(Canvas canvas, int face, Rect bounds) {
+        int color = COLORS[face % COLORS.length];
+        Path shape = shapes[(face / COLORS.length) % SHAPE_COUNT];
+        int glyph = (face / (COLORS.length * SHAPE_COUNT)) % GLYPHS.length;
+
+        canvas.drawRect(bounds, backgroundPaint);
+
+        float cx = bounds.exactCenterX();
+        float cy = bounds.exactCenterY();
+        float radius = Math.min(bounds.width(), bounds.height()) * 0.42f;
+
+        shapePaint.setColor(color);
+        int save = canvas.save();
+        canvas.translate(cx, cy);
+        canvas.scale(radius, radius);
+        canvas.drawPath(shape, shapePaint);
+        canvas.restoreToCount(save);
+
+        glyphPaint.setTextSize(radius * 0.8f);
+        float baseline = cy - (glyphPaint.descent() + glyphPaint.ascent()) / 2f;
+        canvas.drawText(GLYPHS, glyph, 1, cx, baseline, glyphPaint);
+        return true;
+    }
+
+    @Override
+    public boolean drawBack(Canvas canvas, Rect bounds) {
+        return false;
+    }
+
+    private static Path circle() {
+        Path path = new Path();
+        path.addCircle(0f, 0f, 1f, Path.Direction.CW);
+        return path;
+    }
+
+    /**
+     * Regular polygon on the unit circle
+     */
+    private static Path polygon(int sides, float startDegrees) {
+        Path path = new Path();
+        for (int i = 0; i < sides; i++) {
+            double angle = Math.toRadians(startDegrees + i * 360.0 / sides);
+            float x = (float) Math.cos(angle);
+            float y = (float) Math.sin(angle);
+            if (i == 0) {
+                path.moveTo(x, y);
+            } else {
+                path.lineTo(x, y);
+            }
+        }
+        path.close();
+        return path;
+    }
+
+    private static Path star() {
+        Path path = new Path();
+        for (int i = 0; i < 10; i++) {
+            double angle = Math.toRadians(-90 + i * 36);
+            float r = i % 2 == 0 ? 1f : 0.45f;
+            float x = (float) (r * Math.cos(angle));
+            float y = (float) (r * Math.sin(angle));
+            if (i == 0) {
+                path.moveTo(x, y);
+            } else {
+                path.lineTo(x, y);
+            }
+        }
+        path.close();
+        return path;
+    }
+}
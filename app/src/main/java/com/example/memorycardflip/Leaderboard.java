@@ -0,0 +1,317 @@
+package com.example.memorycardflip;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Every finished game in a local SQLite database, indexed by board kind for
+ * top-N and best-time queries. The database is only touched on a single
+ * background thread. Per-board totals are loaded once with one aggregate
+ * query and then kept up to date in memory, so the score panel reads its
+ * high score in constant time however many games are stored. Apart from
+ * load(), methods are called on the main thread.
+ */
+public class Leaderboard {
+
+    private static final String TAG = "Leaderboard";
+    private static final String DB_NAME = "leaderboard.db";
+    private static final int DB_VERSION = 1;
+
+    private static final String TABLE = "games";
+    private static final String MODE = "mode";
+    private static final String COLUMNS = "columns";
+    private static final String ROWS = "rows";
+    private static final String SCORE = "score";
+    private static final String MOVES = "moves";
+    private static final String MISMATCHES = "mismatches";
+    private static final String DURATION = "duration_ms";
+    private static final String SEED = "seed";
+    private static final String CLEARED = "cleared";
+    private static final String FINISHED_AT = "finished_at";
+
+    // Records kept in preferences before the leaderboard, imported once by load()
+    private static final String LEGACY_PREFS_NAME = "MemoryCardFlipPrefs";
+    private static final String LEGACY_HIGH_SCORE_KEY = "HighScore";
+    private static final String LEGACY_BEST_SPEEDRUN_KEY = "BestSpeedrunMillis";
+    // The old high score was shared by all modes; above this an easy board cannot have scored it
+    private static final int EASY_MAX_SCORE = 6 * GameEngine.POINTS_PER_MATCH;
+
+    public interface Callback<T> {
+        /**
+         * Called on the main thread
+         */
+        void onResult(T result);
+    }
+
+    private final DbHelper helper;
+    private final SharedPreferences legacyPrefs;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    // Main thread only
+    private final Map<String, BoardStats> stats = new HashMap<>();
+    private final List<GameResult> recordedBeforeLoad = new ArrayList<>();
+    private final List<Runnable> loadedListeners = new ArrayList<>();
+    private boolean loaded = false;
+
+    public Leaderboard(Context context) {
+        helper = new DbHelper(context.getApplicationContext());
+        legacyPrefs = context.getApplicationContext().getSharedPreferences(LEGACY_PREFS_NAME, Context.MODE_PRIVATE);
+    }
+
+    /**
+     * Fills the in-memory totals from the database in the background
+     */
+    public void load() {
+        executor.execute(() -> {
+            long start = SystemClock.elapsedRealtime();
+            migrateLegacyRecords();
+            final Map<String, BoardStats> loadedStats = new HashMap<>();
+            int games = 0;
+            // One pass over the index gives every board's totals
+            String sql = "SELECT " + MODE + ", " + COLUMNS + ", " + ROWS + ", COUNT(*), MAX(" + SCORE + "), "
+                    + "MIN(CASE WHEN " + CLEARED + " = 1 AND " + DURATION + " > 0 THEN " + DURATION + " END), "
+                    + "SUM(" + MOVES + "), SUM(" + MISMATCHES + ") FROM " + TABLE
+                    + " GROUP BY " + MODE + ", " + COLUMNS + ", " + ROWS;
+            try (Cursor cursor = helper.getReadableDatabase().rawQuery(sql, null)) {
+                while (cursor.moveToNext()) {
+                    BoardStats board = new BoardStats(cursor.getInt(3), cursor.getInt(4),
+                            cursor.isNull(5) ? 0 : cursor.getLong(5), cursor.getLong(6), cursor.getLong(7));
+                    loadedStats.put(GameResult.boardKey(cursor.getString(0), cursor.getInt(1), cursor.getInt(2)),
+                            board);
+                    games += board.getGamesPlayed();
+                }
+            } catch (RuntimeException e) {
+                Log.w(TAG, "Could not load leaderboard", e);
+            }
+            Log.i(TAG, "Loaded stats of " + games + " games in " + (SystemClock.elapsedRealtime() - start) + " ms");
+            mainHandler.post(() -> {
+                // Games recorded meanwhile are inserted after this query ran
+                stats.putAll(loadedStats);
+                for (GameResult result : recordedBeforeLoad) {
+                    addToStats(result);
+                }
+                recordedBeforeLoad.clear();
+                loaded = true;
+                for (Runnable listener : loadedListeners) {
+                    listener.run();
+                }
+                loadedListeners.clear();
+            });
+        });
+    }
+
+    /**
+     * Runs the listener on the main thread once the totals are in memory,
+     * right away if they already are. Main thread only.
+     */
+    public void whenLoaded(Runnable listener) {
+        if (loaded) {
+            listener.run();
+        } else {
+            loadedListeners.add(listener);
+        }
+    }
+
+    /**
+     * @return Totals for the board kind, or null if none is recorded or loaded yet
+     */
+    public BoardStats getStats(String mode, int columns, int rows) {
+        return stats.get(GameResult.boardKey(mode, columns, rows));
+    }
+
+    /**
+     * @return Best score on the board kind from memory, 0 if none
+     */
+    public int getBestScore(String mode, int columns, int rows) {
+        BoardStats board = getStats(mode, columns, rows);
+        return board != null ? board.getBestScore() : 0;
+    }
+
+    /**
+     * Adds the game to the in-memory totals right away and stores it in the background
+     */
+    public void record(GameResult result) {
+        if (loaded) {
+            addToStats(result);
+        } else {
+            recordedBeforeLoad.add(result);
+        }
+
+        executor.execute(() -> {
+            try {
+                insert(helper.getWritableDatabase(), result);
+            } catch (RuntimeException e) {
+                Log.w(TAG, "Could not store game", e);
+            }
+        });
+    }
+
+    private static void insert(SQLiteDatabase db, GameResult result) {
+        ContentValues values = new ContentValues();
+        values.put(MODE, result.mode);
+        values.put(COLUMNS, result.columns);
+        values.put(ROWS, result.rows);
+        values.put(SCORE, result.score);
+        values.put(MOVES, result.moves);
+        values.put(MISMATCHES, result.mismatches);
+        values.put(DURATION, result.durationMillis);
+        values.put(SEED, result.seed);
+        values.put(CLEARED, result.cleared ? 1 : 0);
+        values.put(FINISHED_AT, result.finishedAt);
+        db.insert(TABLE, null, values);
+    }
+
+    /**
+     * Moves the high score and best speedrun time that earlier versions kept
+     * in preferences into the database, then removes them. The high score
+     * goes to the easy board unless only a hard board could have reached it;
+     * speedruns were always played on the hard board. Runs on the executor.
+     */
+    private void migrateLegacyRecords() {
+        if (!legacyPrefs.contains(LEGACY_HIGH_SCORE_KEY) && !legacyPrefs.contains(LEGACY_BEST_SPEEDRUN_KEY)) {
+            return;
+        }
+        int highScore = legacyPrefs.getInt(LEGACY_HIGH_SCORE_KEY, 0);
+        long bestSpeedrun = legacyPrefs.getLong(LEGACY_BEST_SPEEDRUN_KEY, 0);
+        try {
+            SQLiteDatabase db = helper.getWritableDatabase();
+            db.beginTransaction();
+            try {
+                if (highScore > 0) {
+                    boolean easy = highScore <= EASY_MAX_SCORE;
+                    int pairs = easy ? 6 : 10;
+                    // The fewest moves that give this score
+                    int mismatches = Math.max(0, (pairs * GameEngine.POINTS_PER_MATCH - highScore)
+                            / -GameEngine.PENALTY_FOR_MISMATCH);
+                    insert(db, new GameResult(easy ? "easy" : "hard", easy ? 4 : 5, easy ? 3 : 4, highScore,
+                            pairs + mismatches, mismatches, 0, 0, true, 0));
+                }
+                if (bestSpeedrun > 0) {
+                    insert(db, new GameResult("speedrun", 5, 4, 0, 0, 0, bestSpeedrun, 0, true, 0));
+                }
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+        } catch (RuntimeException e) {
+            Log.w(TAG, "Could not import old records", e);
+            return; // Kept for the next start
+        }
+        // Written right away, as the records are now in the database; this is the executor thread
+        legacyPrefs.edit().remove(LEGACY_HIGH_SCORE_KEY).remove(LEGACY_BEST_SPEEDRUN_KEY).commit();
+        Log.i(TAG, "Imported old records: high score " + highScore + ", best speedrun " + bestSpeedrun + " ms");
+    }
+
+    private void addToStats(GameResult result) {
+        BoardStats board = stats.get(result.boardKey());
+        if (board == null) {
+            board = new BoardStats();
+            stats.put(result.boardKey(), board);
+        }
+        board.add(result);
+    }
+
+    /**
+     * Best scores on the board kind, highest first, read through the score index
+     */
+    public void topScores(String mode, int columns, int rows, int limit, Callback<List<GameResult>> callback) {
+        query(mode, columns, rows, SCORE + " DESC", null, limit, callback);
+    }
+
+    /**
+     * Fastest cleared games on the board kind, read through the time index
+     */
+    public void bestTimes(String mode, int columns, int rows, int limit, Callback<List<GameResult>> callback) {
+        query(mode, columns, rows, DURATION + " ASC", CLEARED + " = 1 AND " + DURATION + " > 0",
+                limit, callback);
+    }
+
+    private void query(String mode, int columns, int rows, String orderBy, String extraWhere, int limit,
+                       Callback<List<GameResult>> callback) {
+        executor.execute(() -> {
+            List<GameResult> results = new ArrayList<>(limit);
+            String where = MODE + " = ? AND " + COLUMNS + " = ? AND " + ROWS + " = ?"
+                    + (extraWhere != null ? " AND " + extraWhere : "");
+            String[] args = {mode, Integer.toString(columns), Integer.toString(rows)};
+            try (Cursor cursor = helper.getReadableDatabase().query(TABLE, null, where, args,
+                    null, null, orderBy, Integer.toString(limit))) {
+                while (cursor.moveToNext()) {
+                    results.add(readResult(cursor));
+                }
+            } catch (RuntimeException e) {
+                Log.w(TAG, "Could not query leaderboard", e);
+            }
+            mainHandler.post(() -> callback.onResult(results));
+        });
+    }
+
+    private static GameResult readResult(Cursor cursor) {
+        return new GameResult(
+                cursor.getString(cursor.getColumnIndexOrThrow(MODE)),
+                cursor.getInt(cursor.getColumnIndexOrThrow(COLUMNS)),
+                cursor.getInt(cursor.getColumnIndexOrThrow(ROWS)),
+                cursor.getInt(cursor.getColumnIndexOrThrow(SCORE)),
+                cursor.getInt(cursor.getColumnIndexOrThrow(MOVES)),
+                cursor.getInt(cursor.getColumnIndexOrThrow(MISMATCHES)),
+                cursor.getLong(cursor.getColumnIndexOrThrow(DURATION)),
+                cursor.getLong(cursor.getColumnIndexOrThrow(SEED)),
+                cursor.getInt(cursor.getColumnIndexOrThrow(CLEARED)) != 0,
+                cursor.getLong(cursor.getColumnIndexOrThrow(FINISHED_AT)));
+    }
+
+    private static class DbHelper extends SQLiteOpenHelper {
+
+        DbHelper(Context context) {
+            super(context, DB_NAME, null, DB_VERSION);
+        }
+
+        @Override
+        public void onConfigure(SQLiteDatabase db) {
+            super.onConfigure(db);
+            // Inserts do not wait on readers and vice versa
+            db.enableWriteAheadLogging();
+        }
+
+        @Override
+        public void onCreate(SQLiteDatabase db) {
+            db.execSQL("CREATE TABLE " + TABLE + " ("
+                    + "_id INTEGER PRIMARY KEY AUTOINCREMENT, "
+                    + MODE + " TEXT NOT NULL, "
+                    + COLUMNS + " INTEGER NOT NULL, "
+                    + ROWS + " INTEGER NOT NULL, "
+                    + SCORE + " INTEGER NOT NULL, "
+                    + MOVES + " INTEGER NOT NULL, "
+                    + MISMATCHES + " INTEGER NOT NULL, "
+                    + DURATION + " INTEGER NOT NULL, "
+                    + SEED + " INTEGER NOT NULL, "
+                    + CLEARED + " INTEGER NOT NULL, "
+                    + FINISHED_AT + " INTEGER NOT NULL)");
+            // Top-N per board kind, and the per-board aggregate at startup
+            db.execSQL("CREATE INDEX games_board_score ON " + TABLE
+                    + " (" + MODE + ", " + COLUMNS + ", " + ROWS + ", " + SCORE + " DESC)");
+            // Best times per board kind
+            db.execSQL("CREATE INDEX games_board_time ON " + TABLE
+                    + " (" + MODE + ", " + COLUMNS + ", " + ROWS + ", " + CLEARED + ", " + DURATION + ")");
+        }
+
+        @Override
+        public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+            // Only one version so far
+        }
+    }
+}
@@ -1,80 +1,94 @@
 package com.example.memorycardflip;
 
 import android.content.SharedPreferences;
-import android.graphics.Color;
 import android.os.Bundle;
-import android.os.Handler;
-import android.os.Looper;
+import android.os.SystemClock;
+import android.view.View;
+import android.view.ViewTreeObserver;
 import android.widget.Button;
-import android.widget.GridLayout;
-import android.widget.ImageView;
 import android.widget.TextView;
 import android.widget.Toast;
 import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
-import android.media.MediaPlayer;
+import androidx.lifecycle.ViewModelProvider;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
 
-public class MainActivity extends AppCompatActivity {
-
-    // Variables for score tracking
-    private int currentScore = 0;
-    private int highScore = 0;
+public class MainActivity extends AppCompatActivity implements BoardView.Callbacks {
 
     // UI elements
     private TextView tvCurrentScore;
     private TextView tvHighScore;
-    private GridLayout gameGrid;
+    private BoardView gameGrid;
     private Button btnResetGame;
 
     // Game logic variables
     private final int NUM_CARDS_EASY = 12; // 6 pairs
     private final int NUM_CARDS_HARD = 20; // 10 pairs
+    private final int MAX_CUSTOM_SIDE = 30;
     private int NUM_CARDS = NUM_CARDS_EASY; // Default to easy mode
-    private final int POINTS_PER_MATCH = 10;
-    private final int PENALTY_FOR_MISMATCH = -2;
-    private final int DELAY_BEFORE_HIDING = 1000; // 1 second
+    private int numColumns = 4;
+    private int numRows = 3;
 
     // Sound control
     private boolean isSoundEnabled = true;
 
-    private ImageView firstCard = null;
-    private int firstCardId = -1;
-    private boolean isProcessing = false; // Flag to prevent clicking during card processing
-    private int pairsFound = 0;
-
-    // List of card image resources
-    private final Integer[] cardImagesEasy = {
-        R.drawable.apple, R.drawable.banana, R.drawable.grapes,
-        R.drawable.hippo, R.drawable.lion, R.drawable.monkey
-    };
-    private final Integer[] cardImagesHard = {
-        R.drawable.apple, R.drawable.banana, R.drawable.grapes,
-        R.drawable.hippo, R.drawable.lion, R.drawable.monkey,
-        R.drawable.orange, R.drawable.img_1, R.drawable.hello,
-        R.drawable.fish, R.drawable.watermelon
-    };
-    private Integer[] cardImages = cardImagesEasy; // Default
-
-    // List to track card IDs and their positions
-    private List<Integer> cardPositions;
-
-    // SharedPreferences for saving high score
-    private SharedPreferences preferences;
+    // Game rules and board state, kept by the view model across configuration changes
+    private GameViewModel viewModel;
+    private GameEngine engine;
+    private final Random seedRandom = new Random();
+    private AlertDialog gameOverDialog;
+
+    // Taps made while a pair resolves, applied right after it
+    private static final int TAP_QUEUE_CAPACITY = 2;
+    private final TapQueue tapQueue = new TapQueue(TAP_QUEUE_CAPACITY);
+    private boolean mismatchShowing = false;
+    private static final String STATE_SNAPSHOT = "snapshot";
+
+    private int[] cardImages = CardDecks.EASY; // Default, null for generated or photo faces
+    private int numFaces = CardDecks.EASY.length;
+
+    // Imported photo deck, whose thumbnails are picked anew for each game
+    private static final String PHOTO_DECK_KEY = "PhotoDeckId";
+    private DeckIndex.Entry photoDeck;
+    private DeckFaceRenderer photoRenderer;
+
     private static final String PREFS_NAME = "MemoryCardFlipPrefs";
-    private static final String HIGH_SCORE_KEY = "HighScore";
 
-    // MediaPlayer instances for sound effects
-    private MediaPlayer clickSound;
-    private MediaPlayer matchSound;
-    private MediaPlayer mismatchSound;
+    // Every finished game, with best scores and times per mode and board size
+    private Leaderboard leaderboard;
+
+    // Preloaded sound effects and card faces, shared across the process
+    private SoundEffects soundEffects;
+    private FaceCache faceCache;
+
+    // Latest board is autosaved after every move
+    private AutosaveStore autosaveStore;
+    private String gameMode = "easy";
+
+    // Timed games count down from a limit and speedruns count up; both start on the first flip
+    private static final long TIMED_LIMIT_MILLIS = 90_000L;
+    private static final String STATE_CLOCK = "clockMillis";
+    private GameClock clock; // Null outside timed modes
+    private ClockView clockView;
+    private long timeLimitMillis = 0;
+
+    // Endless games replace each matched pair in place and end after this many mismatches
+    private static final int ENDLESS_MISMATCH_BUDGET = 10;
+
+    // Frame timing per game phase, with an optional debug overlay
+    private FrameStats frameStats;
+    private FrameMetricsMonitor frameMonitor;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+        long createStart = System.nanoTime();
+        viewModel = new ViewModelProvider(this).get(GameViewModel.class);
+        engine = viewModel.getEngine();
+        boolean rebinding = viewModel.hasGame();
 
         try {
             setContentView(R.layout.activity_main);
@@ -93,40 +107,141 @@ public class MainActivity extends AppCompatActivity {
             }
 
             // Get game mode and sound settings from intent with safe defaults
-            String gameMode = getIntent().getStringExtra("mode");
+            gameMode = getIntent().getStringExtra("mode");
             if (gameMode == null) {
                 gameMode = "easy"; // Default fallback
             }
             isSoundEnabled = getIntent().getBooleanExtra("soundEnabled", true);
 
+            // A recreated activity keeps the held board; after process death the
+            // saved instance state, and when continuing the autosave, provide it
+            autosaveStore = MemoryCardFlipApp.from(this).getAutosaveStore();
+            GameSnapshot snapshot = null;
+            int requestedColumns = getIntent().getIntExtra("columns", 4);
+            int requestedRows = getIntent().getIntExtra("rows", 3);
+            if (rebinding) {
+                gameMode = viewModel.getMode();
+                requestedColumns = viewModel.getColumns();
+                requestedRows = viewModel.getRows();
+            } else if (savedInstanceState != null && savedInstanceState.getByteArray(STATE_SNAPSHOT) != null) {
+                snapshot = decodeState(savedInstanceState.getByteArray(STATE_SNAPSHOT));
+                if (snapshot != null) {
+                    gameMode = snapshot.getMode();
+                    requestedColumns = snapshot.getColumns();
+                    requestedRows = snapshot.getRows();
+                }
+            } else if ("continue".equals(gameMode)) {
+                snapshot = autosaveStore.load();
+                gameMode = snapshot != null ? snapshot.getMode() : "easy";
+                if (snapshot != null) {
+                    requestedColumns = snapshot.getColumns();
+                    requestedRows = snapshot.getRows();
+                }
+            }
+
+            if ("photos".equals(gameMode)) {
+                photoDeck = findPhotoDeck();
+                if (photoDeck == null) {
+                    Toast.makeText(this, "Photo deck not found", Toast.LENGTH_SHORT).show();
+                    gameMode = "easy";
+                    snapshot = null;
+                }
+            }
+
             // Set number of cards and images based on difficulty
-            if ("hard".equals(gameMode)) {
+            if (photoDeck != null) {
+                // A hard board when the deck has enough photos for it, easy otherwise
+                boolean large = photoDeck.faceCount >= NUM_CARDS_HARD / 2;
+                NUM_CARDS = large ? NUM_CARDS_HARD : NUM_CARDS_EASY;
+                numColumns = large ? 5 : 4;
+                numRows = large ? 4 : 3;
+                cardImages = null;
+                gameGrid.setCardBackground(R.drawable.card_background);
+            } else if ("custom".equals(gameMode)) {
+                // Any R x C board with a generated face for every pair
+                numColumns = clamp(requestedColumns, 2, MAX_CUSTOM_SIDE);
+                numRows = clamp(requestedRows, 2, MAX_CUSTOM_SIDE);
+                if ((numColumns * numRows) % 2 != 0) {
+                    numRows--;
+                }
+                NUM_CARDS = numColumns * numRows;
+                cardImages = null;
+                gameGrid.setCardBackground(R.drawable.card_hard_mode);
+            } else if ("hard".equals(gameMode) || "daily".equals(gameMode) || isClockMode() || isEndless()) {
+                // The daily challenge is a hard board dealt from the date's seed, and
+                // timed and endless games are played on hard boards too
                 NUM_CARDS = NUM_CARDS_HARD;
-                cardImages = cardImagesHard;
-                gameGrid.setColumnCount(5);
-                gameGrid.setRowCount(4);
+                cardImages = CardDecks.HARD;
+                numColumns = 5;
+                numRows = 4;
+                gameGrid.setCardBackground(R.drawable.card_hard_mode);
             } else {
                 NUM_CARDS = NUM_CARDS_EASY;
-                cardImages = cardImagesEasy;
-                gameGrid.setColumnCount(4);
-                gameGrid.setRowCount(3);
+                cardImages = CardDecks.EASY;
+                numColumns = 4;
+                numRows = 3;
+                gameGrid.setCardBackground(R.drawable.card_background);
             }
 
-            // Load high score from SharedPreferences
-            preferences = getSharedPreferences(PREFS_NAME, MODE_PRIVATE);
-            highScore = preferences.getInt(HIGH_SCORE_KEY, 0);
-            updateScoreDisplay();
+            engine.setMismatchBudget(isEndless() ? ENDLESS_MISMATCH_BUDGET : 0);
+
+            // High score of this board kind, shown once the totals are loaded
+            leaderboard = MemoryCardFlipApp.from(this).getLeaderboard();
+            leaderboard.whenLoaded(this::updateScoreDisplay);
 
             // Set up reset button
             btnResetGame.setOnClickListener(v -> resetGame());
 
-            // Initialize and setup the game
-            setupGame();
+            // The board reports taps back to this activity and draws faces through a renderer
+            gameGrid.setCallbacks(this);
+            if (photoDeck != null) {
+                // Small decks repeat photos across pairs
+                numFaces = Math.min(photoDeck.faceCount, NUM_CARDS / 2);
+                faceCache = MemoryCardFlipApp.from(this).getFaceCache();
+                photoRenderer = new DeckFaceRenderer(faceCache, new File[0], R.drawable.back_card,
+                        () -> gameGrid.invalidate());
+                gameGrid.setFaceRenderer(photoRenderer);
+            } else if (cardImages != null) {
+                numFaces = cardImages.length;
+                faceCache = MemoryCardFlipApp.from(this).getFaceCache();
+                gameGrid.setFaceRenderer(new DeckFaceRenderer(faceCache, cardImages, R.drawable.back_card,
+                        () -> {
+                            // Redraw once the atlas or the decoded faces land
+                            gameGrid.invalidate();
+                            StartupTimer.markBoardInteractive();
+                        }));
+            } else {
+                numFaces = Math.min(NUM_CARDS / 2, GeneratedFaceRenderer.getMaxFaces());
+                gameGrid.setFaceRenderer(new GeneratedFaceRenderer());
+            }
+
+            frameStats = MemoryCardFlipApp.from(this).getFrameStats();
+
+            if (isClockMode()) {
+                clock = viewModel.getClock();
+                timeLimitMillis = "timed".equals(gameMode) ? TIMED_LIMIT_MILLIS : 0;
+                findViewById(R.id.timePanel).setVisibility(View.VISIBLE);
+                clockView = findViewById(R.id.clockView);
+                clockView.setClock(clock, timeLimitMillis, this::onTimeUp);
+            }
+
+            // Initialize and setup the game, resuming the held or saved one if it still fits
+            if (rebinding) {
+                rebindGame();
+            } else if (snapshot == null || !restoreGame(snapshot)) {
+                setupGame();
+            } else if (clock != null && savedInstanceState != null) {
+                clock.restore(savedInstanceState.getLong(STATE_CLOCK, 0));
+                clockView.update();
+            }
+            viewModel.setBoard(gameMode, numColumns, numRows);
+            if (savedInstanceState != null) {
+                reportRecreatedOnFirstDraw(createStart, rebinding);
+            }
 
             // Initialize sound effects
-            clickSound = MediaPlayer.create(this, R.raw.click);
-            matchSound = MediaPlayer.create(this, R.raw.match);
-            mismatchSound = MediaPlayer.create(this, R.raw.notmatch);
+            soundEffects = MemoryCardFlipApp.from(this).getSoundEffects();
+            soundEffects.setEnabled(isSoundEnabled);
 
         } catch (Exception e) {
             // Handle any exceptions during initialization
@@ -140,186 +255,316 @@ public class MainActivity extends AppCompatActivity {
      */
     private void setupGame() {
         try {
-            // Clear any existing cards
-            gameGrid.removeAllViews();
-
-            // Reset game state
-            firstCard = null;
-            firstCardId = -1;
-            isProcessing = false;
-            pairsFound = 0;
-            resetCurrentScore();
-
-            // Create shuffled positions for cards (pairs have same image)
-            cardPositions = new ArrayList<>();
-            int numPairs = NUM_CARDS / 2;
-
-            // Ensure we have enough images
-            for (int i = 0; i < numPairs; i++) {
-                // Use modulo to safely cycle through available images
-                int imageIndex = i % cardImages.length;
-                cardPositions.add(imageIndex);
-                cardPositions.add(imageIndex);
+            setPhase(FrameStats.PHASE_BOARD_SETUP);
+            gameGrid.post(() -> setPhase(FrameStats.PHASE_IDLE));
+
+            tapQueue.clear();
+            mismatchShowing = false;
+            if (clock != null) {
+                clock.reset();
+                clockView.update();
             }
-            Collections.shuffle(cardPositions);
 
-            // Determine the number of columns based on the current mode
-            int numColumns = gameGrid.getColumnCount();
+            // Deal a new shuffled board (pairs have same image), unless one was
+            // prepared during the game over dialog; every flip is recorded
+            if (!viewModel.startPreparedBoard(NUM_CARDS)) {
+                engine.newGame(NUM_CARDS, numFaces, nextSeed());
+            }
+            // Replays cannot reproduce endless replacements, so endless games are not recorded
+            viewModel.setRecording(isEndless() ? null : new GameRecording(engine.getSeed(), NUM_CARDS, numFaces));
+            viewModel.setGameStartMillis(SystemClock.elapsedRealtime());
+            if (isEndless()) {
+                viewModel.getPairStream().reset(numFaces, engine.getSeed() + 1);
+            }
+            updateScoreDisplay();
 
-            // Create the cards and add them to the grid
+            // A single view draws every card
+            bindBoard();
+            autosave();
+        } catch (Exception e) {
+            logError("Error setting up game: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Shows the engine's board, with this game's photos for a photo deck
+     */
+    private void bindBoard() {
+        if (photoRenderer != null) {
+            photoRenderer.setFaceFiles(selectPhotos(engine.getSeed()));
+        }
+        gameGrid.setBoard(engine, numColumns, numRows);
+        if (isEndless() && !engine.isGameOver()) {
+            // Pairs matched while the old view was still pulsing them
             for (int i = 0; i < NUM_CARDS; i++) {
-                final ImageView card = new ImageView(this);
-
-                // Set default image first
-                try {
-                    card.setImageResource(R.drawable.back_card);
-                } catch (Exception e) {
-                    // Fallback if back_card doesn't exist
-                    card.setImageResource(android.R.drawable.ic_menu_gallery);
-                }
+                replaceMatchedPair(i);
+            }
+        }
+    }
 
-                // Use proper layout parameters for the grid
-                GridLayout.LayoutParams params = new GridLayout.LayoutParams();
-                params.width = 0;
-                params.height = 0;
-                params.columnSpec = GridLayout.spec(i % numColumns, 1, 1f);
-                params.rowSpec = GridLayout.spec(i / numColumns, 1, 1f);
-                params.setMargins(8, 8, 8, 8);
+    /**
+     * Picks numFaces distinct thumbnails of the photo deck from the game's seed.
+     * A restored game has no seed and so always gets the seed-0 selection.
+     */
+    private File[] selectPhotos(long seed) {
+        File[] all = MemoryCardFlipApp.from(this).getDeckStore().thumbnails(photoDeck);
+        Random random = new Random(seed);
+        File[] selected = new File[numFaces];
+        for (int i = 0; i < numFaces; i++) {
+            int j = i + random.nextInt(all.length - i);
+            File tmp = all[i];
+            all[i] = all[j];
+            all[j] = tmp;
+            selected[i] = all[i];
+        }
+        return selected;
+    }
 
-                card.setLayoutParams(params);
-                card.setScaleType(ImageView.ScaleType.CENTER_CROP);
+    /**
+     * @return The deck picked in the menu, or for a continued game the one last played
+     */
+    private DeckIndex.Entry findPhotoDeck() {
+        SharedPreferences prefs = getSharedPreferences(PREFS_NAME, MODE_PRIVATE);
+        long deckId = getIntent().getLongExtra("deckId", -1L);
+        if (deckId == -1L) {
+            deckId = prefs.getLong(PHOTO_DECK_KEY, -1L);
+        } else {
+            prefs.edit().putLong(PHOTO_DECK_KEY, deckId).apply();
+        }
+        return deckId == -1L ? null : MemoryCardFlipApp.from(this).getDeckStore().find(deckId);
+    }
 
-                // Set card background based on mode
-                if (NUM_CARDS == NUM_CARDS_HARD) {
-                    card.setBackgroundResource(R.drawable.card_hard_mode);
+    /**
+     * Puts a saved game back on the board
+     * @return false if the snapshot does not match the current board
+     */
+    private boolean restoreGame(GameSnapshot snapshot) {
+        if (snapshot.getNumCards() != NUM_CARDS || snapshot.getMaxFace() >= numFaces) {
+            return false;
+        }
+        try {
+            snapshot.restoreInto(engine);
+        } catch (IllegalArgumentException e) {
+            e.printStackTrace();
+            return false;
+        }
+        // The flips before the save are unknown, so this game cannot be replayed or timed
+        viewModel.setRecording(null);
+        viewModel.setGameStartMillis(0);
+        if (isEndless()) {
+            viewModel.getPairStream().reset(numFaces, nextSeed());
+        }
+        updateScoreDisplay();
+        bindBoard();
+        return true;
+    }
+
+    /**
+     * Rebinds a new view to the held board after a configuration change and
+     * finishes a pair whose animation was cut off with the old view
+     */
+    private void rebindGame() {
+        updateScoreDisplay();
+        bindBoard();
+        if (engine.isProcessing()) {
+            gameGrid.post(() -> {
+                int first = engine.getFirstPosition();
+                int second = engine.getSecondPosition();
+                if (first < 0 || second < 0) {
+                    return;
+                }
+                setPhase(FrameStats.PHASE_MATCH_RESOLUTION);
+                if (engine.isPendingHide(second)) {
+                    mismatchShowing = true;
+                    gameGrid.showMismatch(first);
+                    gameGrid.showMismatch(second);
                 } else {
-                    card.setBackgroundResource(R.drawable.card_background);
+                    resolveMove();
                 }
+            });
+        } else if (engine.isGameOver() || isTimeUp()) {
+            showGameOverDialog();
+        }
+    }
+
+    private GameSnapshot decodeState(byte[] state) {
+        try {
+            return GameSnapshot.decode(state);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
 
-                // Set tag to identify this card's position
-                card.setTag(i);
+    /**
+     * Logs how long a recreation took until the board was drawn again
+     */
+    private void reportRecreatedOnFirstDraw(final long createStart, final boolean rebound) {
+        final View content = findViewById(android.R.id.content);
+        content.getViewTreeObserver().addOnPreDrawListener(new ViewTreeObserver.OnPreDrawListener() {
+            @Override
+            public boolean onPreDraw() {
+                content.getViewTreeObserver().removeOnPreDrawListener(this);
+                StartupTimer.reportRecreation(createStart, rebound);
+                return true;
+            }
+        });
+    }
+
+    @Override
+    protected void onSaveInstanceState(Bundle outState) {
+        super.onSaveInstanceState(outState);
+        // Only used if the view model is gone too, i.e. after process death
+        if (engine != null && engine.getNumCards() > 0 && gameMode != null) {
+            outState.putByteArray(STATE_SNAPSHOT, GameSnapshot.encode(engine, gameMode, numColumns, numRows));
+        }
+        if (clock != null) {
+            outState.putLong(STATE_CLOCK, clock.getElapsedMillis(System.nanoTime()));
+        }
+    }
 
-                // Set up click listener for card
-                final int position = i;
-                card.setOnClickListener(v -> {
-                    if (isProcessing || firstCard == card) {
-                        return; // Prevent clicking during animations or same card twice
-                    }
+    /**
+     * Hands the board to the background writer; a finished game is removed
+     */
+    private void autosave() {
+        // Timed and endless games cannot be continued later, so they leave the autosave alone
+        if (autosaveStore == null || clock != null || isEndless()) {
+            return;
+        }
+        if (engine.isGameOver()) {
+            autosaveStore.clear();
+        } else {
+            autosaveStore.save(GameSnapshot.encode(engine, gameMode, numColumns, numRows));
+        }
+    }
 
-                    // Flip the card to show the image
-                    flipCard(card, cardPositions.get(position));
-                });
+    /**
+     * Taps are never dropped while a pair resolves: a shaking mismatch is turned
+     * back early, otherwise the tap waits in the queue until the pair is done.
+     */
+    @Override
+    public void onCardTapped(int position) {
+        if (isTimeUp()) {
+            return;
+        }
+        if (!engine.isProcessing()) {
+            flipCard(position);
+            return;
+        }
+        if (engine.isRevealed(position) || engine.isMatched(position)) {
+            return; // Tapping a face-up card does nothing
+        }
+        if (mismatchShowing) {
+            resolveMove();
+            flipCard(position);
+        } else {
+            tapQueue.offer(position);
+        }
+    }
 
-                gameGrid.addView(card);
-            }
-        } catch (Exception e) {
-            logError("Error setting up game: " + e.getMessage(), e);
+    private void applyQueuedTaps() {
+        while (!tapQueue.isEmpty() && !engine.isProcessing()) {
+            flipCard(tapQueue.poll());
         }
     }
 
     /**
      * Handles card flipping logic
-     * @param card The card ImageView being flipped
-     * @param imageIndex The index of the image to display
+     * @param position The board position of the card being flipped
      */
-    private void flipCard(ImageView card, int imageIndex) {
-        isProcessing = true;
-
+    private void flipCard(int position) {
         try {
-            // Play click sound
-            playSound(clickSound);
+            int result = engine.flip(position);
+            if (result == GameEngine.FLIP_IGNORED) {
+                return; // Prevent clicking during processing or same card twice
+            }
+            if (clock != null && !clock.isRunning()) {
+                clock.start(System.nanoTime());
+                clockView.update();
+            }
+            GameRecording recording = viewModel.getRecording();
+            if (recording != null) {
+                recording.record(position, SystemClock.uptimeMillis());
+            }
 
-            // Ensure the imageIndex is valid
-            int safeImageIndex = Math.abs(imageIndex) % cardImages.length;
+            // Play click sound and show the image
+            playSound(SoundEffects.CLICK);
+            gameGrid.flip(position, true);
 
-            // Create a new handler for delayed operations - Fixed: Use Looper.getMainLooper()
-            Handler handler = new Handler(Looper.getMainLooper());
+            if (result == GameEngine.FLIP_FIRST) {
+                setPhase(FrameStats.PHASE_FLIP);
+                autosave();
+            } else {
+                setPhase(FrameStats.PHASE_MATCH_RESOLUTION);
+            }
+            if (result == GameEngine.FLIP_MATCH) {
+                playSound(SoundEffects.MATCH);
+            } else if (result == GameEngine.FLIP_MISMATCH) {
+                // Penalty is applied by the engine right away
+                playSound(SoundEffects.MISMATCH);
+                updateScoreDisplay();
+            }
+        } catch (Exception e) {
+            logError("Error flipping card: " + e.getMessage(), e);
+        }
+    }
 
-            // Simply show the image
-            try {
-                card.setImageResource(cardImages[safeImageIndex]);
-            } catch (Exception e) {
-                // Fallback image
-                card.setImageResource(android.R.drawable.ic_menu_gallery);
+    /**
+     * Animation timing drives the pending pair: a match resolves once the second
+     * card has turned over, a mismatch shakes and then turns back.
+     */
+    @Override
+    public void onCardAnimationEnd(int position, int animation) {
+        if (animation == BoardView.ANIMATION_MATCH && isEndless()) {
+            replaceMatchedPair(position);
+            return;
+        }
+        if (!engine.isProcessing() || position != engine.getSecondPosition()) {
+            return;
+        }
+        if (animation == BoardView.ANIMATION_FLIP) {
+            if (engine.isPendingHide(position)) {
+                mismatchShowing = true;
+                gameGrid.showMismatch(engine.getFirstPosition());
+                gameGrid.showMismatch(position);
+            } else {
+                resolveMove();
             }
+        } else if (animation == BoardView.ANIMATION_MISMATCH) {
+            resolveMove();
+        }
+    }
 
-            // If this is the first card flipped
-            if (firstCard == null) {
-                firstCard = card;
-                firstCardId = safeImageIndex;
-                isProcessing = false;
+    /**
+     * Resolves the pending pair once its animations have finished
+     */
+    private void resolveMove() {
+        int first = engine.getFirstPosition();
+        int second = engine.getSecondPosition();
+        try {
+            if (!engine.resolve()) {
+                return;
+            }
+            mismatchShowing = false;
+            setPhase(FrameStats.PHASE_IDLE);
+            autosave();
+
+            if (engine.isMatched(first)) {
+                // Highlight matched cards; the engine ignores further taps on them
+                gameGrid.showMatch(first);
+                gameGrid.showMatch(second);
+                updateScoreDisplay();
+                checkGameOver();
             } else {
-                // This is the second card
-
-                // Check if it's a match
-                if (firstCardId == safeImageIndex) {
-                    // Play match sound
-                    playSound(matchSound);
-
-                    // Cards match
-                    handler.postDelayed(() -> {
-                        try {
-                            // Add a highlight effect for matched cards
-                            card.setBackgroundColor(Color.parseColor("#4CAF50")); // Green background
-                            firstCard.setBackgroundColor(Color.parseColor("#4CAF50"));
-
-                            // Add points
-                            addPoints(POINTS_PER_MATCH);
-
-                            // Make cards unclickable
-                            card.setOnClickListener(null);
-                            firstCard.setOnClickListener(null);
-
-                            // Increment pairs found counter
-                            pairsFound++;
-
-                            // Reset for next pair
-                            firstCard = null;
-                            firstCardId = -1;
-                            isProcessing = false;
-
-                            // Check if game is over (all pairs found)
-                            checkGameOver();
-                        } catch (Exception e) {
-                            logError("Error processing match: " + e.getMessage(), e);
-                            isProcessing = false;
-                        }
-                    }, 300);
-                } else {
-                    // Play mismatch sound
-                    playSound(mismatchSound);
-
-                    // Cards don't match, add penalty
-                    addPoints(PENALTY_FOR_MISMATCH);
-
-                    // Delay before hiding cards again
-                    handler.postDelayed(() -> {
-                        try {
-                            // Flip both cards back
-                            card.setImageResource(R.drawable.back_card);
-                            firstCard.setImageResource(R.drawable.back_card);
-                        } catch (Exception e) {
-                            // Fallback
-                            card.setImageResource(android.R.drawable.ic_menu_gallery);
-                            firstCard.setImageResource(android.R.drawable.ic_menu_gallery);
-                        }
-
-                        // Reset for next attempt
-                        firstCard = null;
-                        firstCardId = -1;
-                        isProcessing = false;
-                    }, DELAY_BEFORE_HIDING);
-                }
+                // Flip both cards back
+                gameGrid.flip(first, false);
+                gameGrid.flip(second, false);
+                // Endless games end on a mismatch
+                checkGameOver();
             }
+            applyQueuedTaps();
         } catch (Exception e) {
-            // If any error occurs, reset the game state
-            try {
-                card.setImageResource(R.drawable.back_card);
-            } catch (Exception ex) {
-                card.setImageResource(android.R.drawable.ic_menu_gallery);
-            }
-            isProcessing = false;
-            logError("Error flipping card: " + e.getMessage(), e);
+            logError("Error processing move: " + e.getMessage(), e);
         }
     }
 
@@ -327,34 +572,136 @@ public class MainActivity extends AppCompatActivity {
      * Checks if the game is over (all pairs found)
      */
     private void checkGameOver() {
-        if (pairsFound >= NUM_CARDS / 2) {
-            // Update high score if necessary
-            if (currentScore > highScore) {
-                highScore = currentScore;
-                SharedPreferences.Editor editor = preferences.edit();
-                editor.putInt(HIGH_SCORE_KEY, highScore);
-                editor.apply();
-                updateScoreDisplay();
+        if (engine.isGameOver()) {
+            if (clock != null) {
+                clock.pause(System.nanoTime());
+                clockView.update();
+            }
+            if (viewModel.getRecording() != null) {
+                MemoryCardFlipApp.from(this).saveReplay(viewModel.getRecording());
             }
 
-            // Game is over - show a dialog
-            try {
-                AlertDialog.Builder builder = new AlertDialog.Builder(this);
-                builder.setTitle("Game Over");
-                builder.setMessage("Final Score: " + currentScore);
-                builder.setPositiveButton("OK", (dialog, which) -> resetGame());
-                builder.setCancelable(false);
-
-                AlertDialog dialog = builder.create();
-                if (!isFinishing() && !isDestroyed()) {
-                    dialog.show();
-                }
-            } catch (Exception e) {
-                logError("Error showing game over dialog: " + e.getMessage(), e);
-                // Fallback: just reset the game
-                resetGame();
+            // Updates the high score and best time of this board kind
+            recordResult(!isEndless());
+            updateScoreDisplay();
+
+            showGameOverDialog();
+        }
+    }
+
+    /**
+     * Game is over - show a dialog; also re-shown when a finished game is rebound
+     */
+    private void showGameOverDialog() {
+        if (gameOverDialog != null && gameOverDialog.isShowing()) {
+            return; // A pair finished right as the time ran out
+        }
+        // Deal the next board while the player reads the result
+        viewModel.prepareNextBoard(MemoryCardFlipApp.from(this).getBackgroundExecutor(),
+                NUM_CARDS, numFaces, nextSeed());
+        try {
+            AlertDialog.Builder builder = new AlertDialog.Builder(this);
+            builder.setTitle(isTimeUp() && !engine.isGameOver() ? "Time's Up" : "Game Over");
+            builder.setMessage(gameOverMessage());
+            builder.setPositiveButton("OK", (dialog, which) -> resetGame());
+            builder.setCancelable(false);
+
+            gameOverDialog = builder.create();
+            if (!isFinishing() && !isDestroyed()) {
+                setPhase(FrameStats.PHASE_GAME_OVER_DIALOG);
+                gameOverDialog.show();
             }
+        } catch (Exception e) {
+            logError("Error showing game over dialog: " + e.getMessage(), e);
+            // Fallback: just reset the game
+            resetGame();
+        }
+    }
+
+    /**
+     * Final score, plus the time for timed games or the pairs found in endless ones
+     */
+    private String gameOverMessage() {
+        String message = "Final Score: " + engine.getScore();
+        if (isEndless()) {
+            return message + "\nPairs found: " + (engine.getMoves() - engine.getMismatches());
+        }
+        if (clock == null) {
+            return message;
+        }
+        long elapsed = clock.getElapsedMillis(System.nanoTime());
+        if (timeLimitMillis > 0) {
+            if (engine.isGameOver()) {
+                message += "\nTime left: " + GameClock.format(timeLimitMillis - elapsed);
+            }
+            return message;
+        }
+        BoardStats stats = leaderboard.getStats(gameMode, numColumns, numRows);
+        long best = stats != null ? stats.getBestTimeMillis() : 0;
+        return message + "\nTime: " + GameClock.format(elapsed) + "\nBest: " + GameClock.format(best);
+    }
+
+    /**
+     * Stores the finished game; timed games are timed by their clock
+     */
+    private void recordResult(boolean cleared) {
+        long duration;
+        if (clock != null) {
+            duration = clock.getElapsedMillis(System.nanoTime());
+        } else if (viewModel.getGameStartMillis() > 0) {
+            duration = SystemClock.elapsedRealtime() - viewModel.getGameStartMillis();
+        } else {
+            duration = 0; // Unknown for a game continued from a save
         }
+        leaderboard.record(new GameResult(gameMode, numColumns, numRows, engine.getScore(), engine.getMoves(),
+                engine.getMismatches(), duration, engine.getSeed(), cleared, System.currentTimeMillis()));
+    }
+
+    /**
+     * Endless mode: once a matched pair has pulsed, deals the next pair from the
+     * stream in its place. Only the two cells are redrawn; the other card the
+     * engine may move the new pair to is face down and looks the same.
+     */
+    private void replaceMatchedPair(int position) {
+        if (!engine.isMatched(position) || engine.isGameOver()) {
+            return;
+        }
+        int partner = engine.findMatchedPartner(position);
+        if (partner < 0) {
+            return;
+        }
+        engine.replacePair(position, partner, viewModel.getPairStream().next());
+        gameGrid.dealCard(position);
+        gameGrid.dealCard(partner);
+    }
+
+    private boolean isEndless() {
+        return "endless".equals(gameMode);
+    }
+
+    private boolean isClockMode() {
+        return "timed".equals(gameMode) || "speedrun".equals(gameMode);
+    }
+
+    /**
+     * @return true if a timed game ran out of time before the board was cleared
+     */
+    private boolean isTimeUp() {
+        return clockView != null && !engine.isGameOver() && clockView.isExpired(System.nanoTime());
+    }
+
+    /**
+     * The countdown reached zero: stop the clock and end the game
+     */
+    private void onTimeUp() {
+        if (engine.isGameOver()) {
+            return;
+        }
+        clock.pause(System.nanoTime());
+        clockView.update();
+        tapQueue.clear();
+        recordResult(false);
+        showGameOverDialog();
     }
 
     /**
@@ -363,46 +710,98 @@ public class MainActivity extends AppCompatActivity {
     private void updateScoreDisplay() {
         try {
             if (tvCurrentScore != null) {
-                tvCurrentScore.setText(String.valueOf(currentScore));
+                tvCurrentScore.setText(String.valueOf(engine.getScore()));
             }
             if (tvHighScore != null) {
-                tvHighScore.setText(String.valueOf(highScore));
+                tvHighScore.setText(String.valueOf(leaderboard.getBestScore(gameMode, numColumns, numRows)));
             }
         } catch (Exception e) {
             logError("Error updating score display: " + e.getMessage(), e);
         }
     }
 
-    private void resetGame() {
-        setupGame();
+    private static int clamp(int value, int min, int max) {
+        return Math.max(min, Math.min(max, value));
     }
 
-    private void resetCurrentScore() {
-        currentScore = 0;
-        updateScoreDisplay();
+    private long nextSeed() {
+        return "daily".equals(gameMode) ? DailyChallenge.seedForToday() : seedRandom.nextLong();
     }
 
-    private void addPoints(int points) {
-        currentScore += points;
-        updateScoreDisplay();
+    private void setPhase(int phase) {
+        if (frameStats != null) {
+            frameStats.setPhase(phase);
+        }
     }
 
-    private void playSound(MediaPlayer sound) {
-        if (isSoundEnabled && sound != null) {
-            sound.start();
+    @Override
+    protected void onResume() {
+        super.onResume();
+        MusicPlayer music = MemoryCardFlipApp.from(this).getMusicPlayer();
+        music.setEnabled(isSoundEnabled);
+        // No separate game track yet: the menu theme carries on, quieter under play
+        music.play(R.raw.mainmenu, MusicPlayer.GAME_VOLUME);
+        // Samples freed while the game was in the background are loaded again
+        if (soundEffects != null) {
+            soundEffects.ensureLoaded();
+        }
+        // A started timed game carries on where it was paused
+        if (clock != null && clock.isStarted() && !engine.isGameOver() && !isTimeUp()) {
+            clock.start(System.nanoTime());
+            clockView.update();
+        }
+        if (frameStats != null && MemoryCardFlipApp.from(this).isPerfOverlayEnabled()) {
+            frameMonitor = new FrameMetricsMonitor(this, frameStats);
+            frameMonitor.start();
         }
     }
 
-    private void logError(String message, Exception e) {
-        Toast.makeText(this, message, Toast.LENGTH_SHORT).show();
-        e.printStackTrace();
+    @Override
+    protected void onPause() {
+        super.onPause();
+        // The clock does not run while the game is not in front
+        if (clock != null) {
+            clock.pause(System.nanoTime());
+            clockView.update();
+        }
+        if (frameMonitor != null) {
+            frameMonitor.stop();
+            frameMonitor = null;
+        }
     }
 
     @Override
     protected void onDestroy() {
         super.onDestroy();
-        if (clickSound != null) clickSound.release();
-        if (matchSound != null) clickSound.release();
-        if (mismatchSound != null) clickSound.release();
+        // The dialog belongs to this window; a rebound activity shows its own
+        if (gameOverDialog != null && gameOverDialog.isShowing()) {
+            gameOverDialog.dismiss();
+        }
+        gameOverDialog = null;
+    }
+
+    @Override
+    protected void onStop() {
+        super.onStop();
+        // Taps queued before leaving should not fire on return
+        tapQueue.clear();
+        if (frameStats != null && MemoryCardFlipApp.from(this).isPerfOverlayEnabled()) {
+            MemoryCardFlipApp.from(this).writePerfReport();
+        }
+    }
+
+    private void resetGame() {
+        setupGame();
+    }
+
+    private void playSound(int effect) {
+        if (isSoundEnabled && soundEffects != null) {
+            soundEffects.play(effect);
+        }
+    }
+
+    private void logError(String message, Exception e) {
+        Toast.makeText(this, message, Toast.LENGTH_SHORT).show();
+        e.printStackTrace();
     }
 }
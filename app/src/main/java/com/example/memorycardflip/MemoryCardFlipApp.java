@@ -0,0 +1,296 @@
+package com.example.memorycardflip;
+
+import android.app.Activity;
+import android.app.Application;
+import android.content.Context;
+import android.os.Build;
+import android.os.Bundle;
+import android.util.DisplayMetrics;
+import android.util.Log;
+
+import com.example.memorycardflip.ui.board.ComposeGameActivity;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Process-wide state: owns the face cache, sound effects, music, autosave and
+ * frame stats, and warms the caches up in parallel with SharedPreferences while the
+ * splash screen is showing. Memory pressure is handed to the ResourceManager.
+ */
+public class MemoryCardFlipApp extends Application {
+
+    private static final String TAG = "MemoryCardFlipApp";
+    private static final String PREFS_NAME = "MemoryCardFlipPrefs";
+    private static final String PERF_OVERLAY_KEY = "PerfOverlay";
+    private static final String PERF_DIR = "perf";
+    private static final String REPLAY_DIR = "replays";
+    private static final int MAX_PERF_REPORTS = 20;
+    private static final int MAX_REPLAYS = 200;
+    private static final int FRAME_WINDOW = 240;
+    private static final long DEFAULT_FRAME_BUDGET_NANOS = 16_666_667L;
+
+    // Upper bound on the share of the screen height the game grid gets
+    private static final float GRID_HEIGHT_FRACTION = 0.75f;
+
+    private final ExecutorService backgroundExecutor = Executors.newCachedThreadPool();
+    private final FrameStats frameStats = new FrameStats(FRAME_WINDOW, DEFAULT_FRAME_BUDGET_NANOS);
+    private final long sessionStartMillis = System.currentTimeMillis();
+
+    private FaceCache faceCache;
+    private AutosaveStore autosaveStore;
+    private DeckStore deckStore;
+    private DeckImporter deckImporter;
+    private Leaderboard leaderboard;
+    private SoundEffects soundEffects;
+    private MusicPlayer musicPlayer;
+    private ResourceManager resourceManager;
+    private int startedActivities = 0;
+    private int gameActivities = 0;
+    private volatile boolean prefsReady = false;
+
+    public static MemoryCardFlipApp from(Context context) {
+        return (MemoryCardFlipApp) context.getApplicationContext();
+    }
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        StartupTimer.markProcessStart();
+
+        boolean lowRam = ResourceManager.isLowRamDevice(this);
+        faceCache = new FaceCache(this, lowRam);
+        autosaveStore = new AutosaveStore(this);
+        deckStore = new DeckStore(this);
+        leaderboard = new Leaderboard(this);
+        musicPlayer = new MusicPlayer(this);
+        resourceManager = new ResourceManager(faceCache, musicPlayer, lowRam);
+        registerActivityLifecycleCallbacks(new ForegroundTracker());
+        warmUp();
+    }
+
+    /**
+     * Starts loading preferences, sound effects and card faces in parallel
+     */
+    private void warmUp() {
+        backgroundExecutor.execute(() -> {
+            // getAll() blocks until the XML file has been parsed
+            getSharedPreferences(PREFS_NAME, MODE_PRIVATE).getAll();
+            // The menu decides whether to offer Continue from the autosave
+            autosaveStore.preload();
+            prefsReady = true;
+            StartupTimer.markPrefsReady();
+            // Photo decks are listed from the menu; their index is small
+            deckStore.getIndex();
+        });
+
+        // Low-RAM devices load sound effects with the first game instead
+        if (!resourceManager.isLowRam()) {
+            backgroundExecutor.execute(this::getSoundEffects);
+        }
+
+        // Per-board totals for the score panel, read on the leaderboard's own thread
+        leaderboard.load();
+
+        // Faces are decoded on the cache's own thread at an estimated cell size;
+        // the board will use them until its exact-size decode lands
+        DisplayMetrics metrics = getResources().getDisplayMetrics();
+        int gridWidth = metrics.widthPixels;
+        int gridHeight = (int) (metrics.heightPixels * GRID_HEIGHT_FRACTION);
+        faceCache.prefetch(CardDecks.EASY, gridWidth / 4, gridHeight / 3);
+        if (!resourceManager.isLowRam()) {
+            faceCache.prefetch(CardDecks.HARD, gridWidth / 5, gridHeight / 4);
+        }
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        SoundEffects loadedEffects;
+        synchronized (this) {
+            loadedEffects = soundEffects;
+        }
+        resourceManager.onTrimMemory(level, loadedEffects);
+    }
+
+    /**
+     * @return true once everything the menu needs synchronously is loaded
+     */
+    public boolean isReady() {
+        return prefsReady;
+    }
+
+    public ResourceManager getResourceManager() {
+        return resourceManager;
+    }
+
+    public FaceCache getFaceCache() {
+        return faceCache;
+    }
+
+    public AutosaveStore getAutosaveStore() {
+        return autosaveStore;
+    }
+
+    public DeckStore getDeckStore() {
+        return deckStore;
+    }
+
+    public Leaderboard getLeaderboard() {
+        return leaderboard;
+    }
+
+    /**
+     * Created on first use; imports keep running across menu recreation
+     */
+    public DeckImporter getDeckImporter() {
+        if (deckImporter == null) {
+            deckImporter = new DeckImporter(this, deckStore);
+        }
+        return deckImporter;
+    }
+
+    public ExecutorService getBackgroundExecutor() {
+        return backgroundExecutor;
+    }
+
+    public FrameStats getFrameStats() {
+        return frameStats;
+    }
+
+    /**
+     * The frame-metrics overlay is a debug-build tool toggled from the menu
+     */
+    public boolean isPerfOverlayEnabled() {
+        return BuildConfig.DEBUG
+                && getSharedPreferences(PREFS_NAME, MODE_PRIVATE).getBoolean(PERF_OVERLAY_KEY, false);
+    }
+
+    public void setPerfOverlayEnabled(boolean enabled) {
+        getSharedPreferences(PREFS_NAME, MODE_PRIVATE).edit().putBoolean(PERF_OVERLAY_KEY, enabled).apply();
+    }
+
+    /**
+     * Writes the session's frame statistics as JSON into app-private storage
+     */
+    public void writePerfReport() {
+        final String json = frameStats.toJson(sessionStartMillis, System.currentTimeMillis(),
+                Build.MANUFACTURER + " " + Build.MODEL + " (API " + Build.VERSION.SDK_INT + ")");
+        writeInBackground(PERF_DIR, "session-" + sessionStartMillis + ".json",
+                json.getBytes(StandardCharsets.UTF_8), MAX_PERF_REPORTS);
+    }
+
+    /**
+     * Keeps a finished game's recording for bug reports and scoring checks
+     */
+    public void saveReplay(GameRecording recording) {
+        writeInBackground(REPLAY_DIR, "game-" + System.currentTimeMillis() + "-"
+                + Long.toHexString(recording.getSeed()) + ".rec", recording.encode(), MAX_REPLAYS);
+    }
+
+    /**
+     * Writes a file into a directory under app storage, keeping only its newest files
+     */
+    private void writeInBackground(String dirName, String fileName, byte[] data, int maxFiles) {
+        backgroundExecutor.execute(() -> {
+            File dir = new File(getFilesDir(), dirName);
+            if (!dir.isDirectory() && !dir.mkdirs()) {
+                Log.w(TAG, "Could not create " + dir);
+                return;
+            }
+            File file = new File(dir, fileName);
+            try (FileOutputStream out = new FileOutputStream(file)) {
+                out.write(data);
+                Log.i(TAG, "Wrote " + file);
+            } catch (IOException e) {
+                Log.w(TAG, "Could not write " + file, e);
+            }
+
+            File[] files = dir.listFiles();
+            if (files != null && files.length > maxFiles) {
+                Arrays.sort(files, (a, b) -> Long.compare(a.lastModified(), b.lastModified()));
+                for (int i = 0; i < files.length - maxFiles; i++) {
+                    files[i].delete();
+                }
+            }
+        });
+    }
+
+    /**
+     * Shared by the menu and the game so music carries across the switch
+     */
+    public MusicPlayer getMusicPlayer() {
+        return musicPlayer;
+    }
+
+    public synchronized SoundEffects getSoundEffects() {
+        if (soundEffects == null) {
+            soundEffects = new SoundEffects(this);
+        }
+        return soundEffects;
+    }
+
+    private static boolean isGameActivity(Activity activity) {
+        return activity instanceof MainActivity || activity instanceof ComposeGameActivity;
+    }
+
+    /**
+     * Music plays while any activity is started. The next activity starts
+     * before the previous one stops, so switching screens never drops to zero.
+     * Sound effect samples are kept while a game screen exists and released
+     * when the last one is destroyed; a new game loads them in onResume().
+     */
+    private class ForegroundTracker implements ActivityLifecycleCallbacks {
+        @Override
+        public void onActivityStarted(Activity activity) {
+            if (startedActivities++ == 0) {
+                musicPlayer.setForeground(true);
+            }
+        }
+
+        @Override
+        public void onActivityStopped(Activity activity) {
+            if (--startedActivities == 0) {
+                musicPlayer.setForeground(false);
+            }
+        }
+
+        @Override
+        public void onActivityCreated(Activity activity, Bundle savedInstanceState) {
+            if (isGameActivity(activity)) {
+                gameActivities++;
+            }
+        }
+
+        @Override
+        public void onActivityResumed(Activity activity) {
+        }
+
+        @Override
+        public void onActivityPaused(Activity activity) {
+        }
+
+        @Override
+        public void onActivitySaveInstanceState(Activity activity, Bundle outState) {
+        }
+
+        @Override
+        public void onActivityDestroyed(Activity activity) {
+            if (!isGameActivity(activity) || --gameActivities > 0 || activity.isChangingConfigurations()) {
+                return;
+            }
+            SoundEffects loadedEffects;
+            synchronized (MemoryCardFlipApp.this) {
+                loadedEffects = soundEffects;
+            }
+            if (loadedEffects != null) {
+                loadedEffects.releaseSamples();
+            }
+        }
+    }
+}
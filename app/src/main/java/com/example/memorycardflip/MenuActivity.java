@@ -2,49 +2,81 @@ package com.example.memorycardflip;
 
 import android.content.Intent;
 import android.content.SharedPreferences;
-import android.media.MediaPlayer;
+import android.net.Uri;
 import android.os.Bundle;
+import android.view.Gravity;
+import android.view.View;
+import android.view.ViewTreeObserver;
 import android.widget.Button;
 import android.widget.ImageView;
+import android.widget.LinearLayout;
+import android.widget.NumberPicker;
+import android.widget.ProgressBar;
+import android.widget.TextView;
 import android.widget.Toast;
+import androidx.activity.result.ActivityResultLauncher;
+import androidx.activity.result.contract.ActivityResultContracts;
+import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.core.splashscreen.SplashScreen;
 
-public class MenuActivity extends AppCompatActivity {
+import com.example.memorycardflip.ui.board.ComposeGameActivity;
 
-    private Button btnEasy, btnHard, btnSound;
+import java.text.DateFormat;
+import java.util.Date;
+import java.util.List;
+
+public class MenuActivity extends AppCompatActivity implements DeckImporter.Listener {
+
+    private Button btnContinue, btnEasy, btnHard, btnCustom, btnDaily, btnTimed, btnEndless, btnPhotos,
+            btnSound;
     private ImageView gameIcon;
     private boolean isSoundEnabled = true;
 
     private SharedPreferences preferences;
     private static final String PREFS_NAME = "MemoryCardFlipPrefs";
     private static final String SOUND_ENABLED_KEY = "SoundEnabled";
+    private static final String CUSTOM_ROWS_KEY = "CustomRows";
+    private static final String CUSTOM_COLUMNS_KEY = "CustomColumns";
+    private static final int MAX_CUSTOM_SIDE = 30;
+
+    private MusicPlayer music;
 
-    private MediaPlayer mediaPlayer;
+    private FrameMetricsMonitor frameMonitor;
+
+    // Photo deck import runs in the app's importer; this screen only shows progress
+    private final ActivityResultLauncher<String> pickPhotos = registerForActivityResult(
+            new ActivityResultContracts.GetMultipleContents(), this::importPhotos);
+    private AlertDialog importDialog;
+    private ProgressBar importProgress;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
+        // Keep the platform splash screen up only until startup warmup is ready
+        SplashScreen splashScreen = SplashScreen.installSplashScreen(this);
+        MemoryCardFlipApp app = MemoryCardFlipApp.from(this);
+        splashScreen.setKeepOnScreenCondition(() -> !app.isReady());
+
         super.onCreate(savedInstanceState);
 
         try {
             setContentView(R.layout.activity_menu);
-
-            // Initialize MediaPlayer for background music
-            mediaPlayer = MediaPlayer.create(this, R.raw.mainmenu);
-            mediaPlayer.setLooping(true);
-
-            // Play music if sound is enabled
-            if (isSoundEnabled) {
-                mediaPlayer.start();
-            }
+            reportMenuShownOnFirstDraw();
 
             // Initialize UI elements - with null checks
+            btnContinue = findViewById(R.id.btn_continue);
             btnEasy = findViewById(R.id.btn_easy);
             btnHard = findViewById(R.id.btn_hard);
+            btnCustom = findViewById(R.id.btn_custom);
+            btnDaily = findViewById(R.id.btn_daily);
+            btnTimed = findViewById(R.id.btn_timed);
+            btnEndless = findViewById(R.id.btn_endless);
+            btnPhotos = findViewById(R.id.btn_photos);
             btnSound = findViewById(R.id.btn_sound);
             gameIcon = findViewById(R.id.gameIcon);
 
             // Check if all UI elements were found
-            if (btnEasy == null || btnHard == null || btnSound == null) {
+            if (btnEasy == null || btnHard == null || btnCustom == null || btnDaily == null || btnSound == null) {
                 Toast.makeText(this, "Error: UI elements not found in menu", Toast.LENGTH_LONG).show();
                 finish();
                 return;
@@ -69,11 +101,44 @@ public class MenuActivity extends AppCompatActivity {
                 btnSound.setText(isSoundEnabled ? "Sound: ON" : "Sound: OFF");
             }
 
+            // Music prepares asynchronously in the shared player; the menu does not wait for it
+            music = MemoryCardFlipApp.from(this).getMusicPlayer();
+            music.setEnabled(isSoundEnabled);
+
             // Set up button click listeners
+            if (btnContinue != null) {
+                btnContinue.setOnClickListener(v -> startGame("continue"));
+            }
             btnEasy.setOnClickListener(v -> startGame("easy"));
             btnHard.setOnClickListener(v -> startGame("hard"));
+            btnCustom.setOnClickListener(v -> showCustomBoardDialog());
+            btnDaily.setOnClickListener(v -> startGame("daily"));
+            if (btnTimed != null) {
+                btnTimed.setOnClickListener(v -> showTimedModesDialog());
+            }
+            if (btnEndless != null) {
+                btnEndless.setOnClickListener(v -> startGame("endless"));
+            }
+            if (btnPhotos != null) {
+                btnPhotos.setOnClickListener(v -> showPhotoDecksDialog());
+            }
             btnSound.setOnClickListener(v -> toggleSound());
 
+            // Debug builds: long-press the title to toggle the frame metrics overlay
+            View title = findViewById(R.id.gameTitle);
+            if (BuildConfig.DEBUG && title != null) {
+                title.setOnLongClickListener(v -> {
+                    togglePerfOverlay();
+                    return true;
+                });
+            }
+
+            // Debug builds: long-press Easy or Hard to play on the Compose board
+            if (BuildConfig.DEBUG) {
+                btnEasy.setOnLongClickListener(v -> startComposeGame("easy"));
+                btnHard.setOnLongClickListener(v -> startComposeGame("hard"));
+            }
+
         } catch (Exception e) {
             Toast.makeText(this, "Error initializing menu: " + e.getMessage(), Toast.LENGTH_LONG).show();
             e.printStackTrace();
@@ -81,6 +146,46 @@ public class MenuActivity extends AppCompatActivity {
         }
     }
 
+    private void togglePerfOverlay() {
+        MemoryCardFlipApp app = MemoryCardFlipApp.from(this);
+        boolean enabled = !app.isPerfOverlayEnabled();
+        app.setPerfOverlayEnabled(enabled);
+        if (enabled) {
+            startFrameMonitor();
+        } else {
+            stopFrameMonitor();
+        }
+        Toast.makeText(this, enabled ? "Frame metrics on" : "Frame metrics off", Toast.LENGTH_SHORT).show();
+    }
+
+    private void startFrameMonitor() {
+        if (frameMonitor == null) {
+            FrameStats stats = MemoryCardFlipApp.from(this).getFrameStats();
+            stats.setPhase(FrameStats.PHASE_MENU);
+            frameMonitor = new FrameMetricsMonitor(this, stats);
+            frameMonitor.start();
+        }
+    }
+
+    private void stopFrameMonitor() {
+        if (frameMonitor != null) {
+            frameMonitor.stop();
+            frameMonitor = null;
+        }
+    }
+
+    private void reportMenuShownOnFirstDraw() {
+        final View content = findViewById(android.R.id.content);
+        content.getViewTreeObserver().addOnPreDrawListener(new ViewTreeObserver.OnPreDrawListener() {
+            @Override
+            public boolean onPreDraw() {
+                content.getViewTreeObserver().removeOnPreDrawListener(this);
+                StartupTimer.markMenuShown();
+                return true;
+            }
+        });
+    }
+
     private void toggleSound() {
         try {
             isSoundEnabled = !isSoundEnabled;
@@ -93,15 +198,9 @@ public class MenuActivity extends AppCompatActivity {
             // Update button text
             btnSound.setText(isSoundEnabled ? R.string.sound_on : R.string.sound_off);
 
-            // Start or stop music based on sound preference
-            if (isSoundEnabled) {
-                if (!mediaPlayer.isPlaying()) {
-                    mediaPlayer.start();
-                }
-            } else {
-                if (mediaPlayer.isPlaying()) {
-                    mediaPlayer.pause();
-                }
+            // Fade music in or out based on sound preference
+            if (music != null) {
+                music.setEnabled(isSoundEnabled);
             }
         } catch (Exception e) {
             Toast.makeText(this, "Error toggling sound", Toast.LENGTH_SHORT).show();
@@ -109,11 +208,182 @@ public class MenuActivity extends AppCompatActivity {
         }
     }
 
+    /**
+     * Lets the player pick any R x C board; odd-sized boards lose a row in game
+     */
+    private void showCustomBoardDialog() {
+        try {
+            NumberPicker rowsPicker = createSidePicker(preferences.getInt(CUSTOM_ROWS_KEY, 6));
+            NumberPicker columnsPicker = createSidePicker(preferences.getInt(CUSTOM_COLUMNS_KEY, 6));
+
+            LinearLayout layout = new LinearLayout(this);
+            layout.setOrientation(LinearLayout.HORIZONTAL);
+            layout.setGravity(Gravity.CENTER);
+            layout.addView(labeled(R.string.custom_board_rows, rowsPicker));
+            layout.addView(labeled(R.string.custom_board_columns, columnsPicker));
+
+            new AlertDialog.Builder(this)
+                    .setTitle(R.string.custom_board_title)
+                    .setView(layout)
+                    .setPositiveButton(R.string.start, (dialog, which) -> {
+                        int rows = rowsPicker.getValue();
+                        int columns = columnsPicker.getValue();
+                        preferences.edit()
+                                .putInt(CUSTOM_ROWS_KEY, rows)
+                                .putInt(CUSTOM_COLUMNS_KEY, columns)
+                                .apply();
+
+                        Intent intent = createGameIntent("custom");
+                        intent.putExtra("rows", rows);
+                        intent.putExtra("columns", columns);
+                        startActivity(intent);
+                    })
+                    .setNegativeButton(android.R.string.cancel, null)
+                    .show();
+        } catch (Exception e) {
+            Toast.makeText(this, "Error starting game: " + e.getMessage(), Toast.LENGTH_SHORT).show();
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Timed: clear the board before the clock runs out. Speedrun: as fast as possible.
+     */
+    private void showTimedModesDialog() {
+        String[] items = {getString(R.string.timed_mode), getString(R.string.speedrun_mode)};
+        new AlertDialog.Builder(this)
+                .setTitle(R.string.time_attack)
+                .setItems(items, (dialog, which) -> startGame(which == 0 ? "timed" : "speedrun"))
+                .setNegativeButton(android.R.string.cancel, null)
+                .show();
+    }
+
+    /**
+     * Lists the imported photo decks plus an entry to import a new one
+     */
+    private void showPhotoDecksDialog() {
+        try {
+            DeckImporter importer = MemoryCardFlipApp.from(this).getDeckImporter();
+            if (importer.isRunning()) {
+                showImportDialog();
+                return;
+            }
+            final List<DeckIndex.Entry> decks = MemoryCardFlipApp.from(this).getDeckStore().getIndex().getEntries();
+            if (decks.isEmpty()) {
+                pickPhotos.launch("image/*");
+                return;
+            }
+            String[] items = new String[decks.size() + 1];
+            for (int i = 0; i < decks.size(); i++) {
+                items[i] = getString(R.string.photo_deck_item, decks.get(i).name, decks.get(i).faceCount);
+            }
+            items[decks.size()] = getString(R.string.import_photos);
+
+            new AlertDialog.Builder(this)
+                    .setTitle(R.string.photo_decks)
+                    .setItems(items, (dialog, which) -> {
+                        if (which == decks.size()) {
+                            pickPhotos.launch("image/*");
+                        } else {
+                            startPhotoGame(decks.get(which).id);
+                        }
+                    })
+                    .setNegativeButton(android.R.string.cancel, null)
+                    .show();
+        } catch (Exception e) {
+            Toast.makeText(this, "Error loading photo decks: " + e.getMessage(), Toast.LENGTH_SHORT).show();
+            e.printStackTrace();
+        }
+    }
+
+    private void importPhotos(List<Uri> photos) {
+        if (photos == null || photos.isEmpty()) {
+            return;
+        }
+        String name = getString(R.string.photo_deck_name, DateFormat.getDateInstance().format(new Date()));
+        MemoryCardFlipApp.from(this).getDeckImporter().importPhotos(photos, name);
+    }
+
+    private void startPhotoGame(long deckId) {
+        Intent intent = createGameIntent("photos");
+        intent.putExtra("deckId", deckId);
+        startActivity(intent);
+    }
+
+    private void showImportDialog() {
+        if (importDialog != null && importDialog.isShowing()) {
+            return;
+        }
+        importProgress = new ProgressBar(this, null, android.R.attr.progressBarStyleHorizontal);
+        importProgress.setPadding(48, 24, 48, 0);
+        // Hiding the dialog leaves the import running
+        importDialog = new AlertDialog.Builder(this)
+                .setTitle(R.string.importing_photos)
+                .setView(importProgress)
+                .setNegativeButton(R.string.hide, null)
+                .show();
+    }
+
+    @Override
+    public void onImportProgress(int done, int total) {
+        showImportDialog();
+        importProgress.setMax(total);
+        importProgress.setProgress(done);
+    }
+
+    @Override
+    public void onImportFinished(DeckIndex.Entry deck) {
+        if (importDialog != null) {
+            importDialog.dismiss();
+            importDialog = null;
+        }
+        if (deck == null) {
+            Toast.makeText(this, R.string.import_failed, Toast.LENGTH_SHORT).show();
+            return;
+        }
+        startPhotoGame(deck.id);
+    }
+
+    private NumberPicker createSidePicker(int value) {
+        NumberPicker picker = new NumberPicker(this);
+        picker.setMinValue(2);
+        picker.setMaxValue(MAX_CUSTOM_SIDE);
+        picker.setValue(Math.max(2, Math.min(MAX_CUSTOM_SIDE, value)));
+        return picker;
+    }
+
+    private LinearLayout labeled(int labelRes, View view) {
+        LinearLayout column = new LinearLayout(this);
+        column.setOrientation(LinearLayout.VERTICAL);
+        column.setGravity(Gravity.CENTER_HORIZONTAL);
+        column.setPadding(24, 16, 24, 0);
+        TextView label = new TextView(this);
+        label.setText(labelRes);
+        column.addView(label);
+        column.addView(view);
+        return column;
+    }
+
+    private Intent createGameIntent(String mode) {
+        Intent intent = new Intent(this, MainActivity.class);
+        intent.putExtra("mode", mode);
+        intent.putExtra("soundEnabled", isSoundEnabled);
+        return intent;
+    }
+
+    private boolean startComposeGame(String mode) {
+        Intent intent = createGameIntent(mode);
+        intent.setClass(this, ComposeGameActivity.class);
+        startGame(intent);
+        return true;
+    }
+
     private void startGame(String mode) {
+        startGame(createGameIntent(mode));
+    }
+
+    private void startGame(Intent intent) {
         try {
-            Intent intent = new Intent(this, MainActivity.class);
-            intent.putExtra("mode", mode);
-            intent.putExtra("soundEnabled", isSoundEnabled);
             startActivity(intent);
         } catch (Exception e) {
             Toast.makeText(this, "Error starting game: " + e.getMessage(), Toast.LENGTH_SHORT).show();
@@ -124,25 +394,44 @@ public class MenuActivity extends AppCompatActivity {
     @Override
     protected void onPause() {
         super.onPause();
-        if (mediaPlayer != null && mediaPlayer.isPlaying()) {
-            mediaPlayer.pause();
+        stopFrameMonitor();
+        MemoryCardFlipApp.from(this).getDeckImporter().setListener(null);
+        if (importDialog != null) {
+            importDialog.dismiss();
+            importDialog = null;
         }
     }
 
+    private void updateContinueButton() {
+        boolean canContinue = MemoryCardFlipApp.from(this).getAutosaveStore().hasSnapshot();
+        btnContinue.setVisibility(canContinue ? View.VISIBLE : View.GONE);
+    }
+
     @Override
     protected void onResume() {
         super.onResume();
-        if (mediaPlayer != null && isSoundEnabled) {
-            mediaPlayer.start();
+        MemoryCardFlipApp.from(this).getFrameStats().setPhase(FrameStats.PHASE_MENU);
+        if (btnContinue != null) {
+            // Offer to resume only while an unfinished game is saved; the file is
+            // read off the main thread, so this waits for the warmup to read it
+            MemoryCardFlipApp.from(this).getAutosaveStore().whenLoaded(this::updateContinueButton);
+        }
+        if (MemoryCardFlipApp.from(this).isPerfOverlayEnabled()) {
+            startFrameMonitor();
+        }
+        // Shows progress again if an import is still running
+        MemoryCardFlipApp.from(this).getDeckImporter().setListener(this);
+        if (music != null) {
+            // Cross-fades back from the game's level when returning from a game
+            music.play(R.raw.mainmenu, MusicPlayer.MENU_VOLUME);
         }
     }
 
     @Override
-    protected void onDestroy() {
-        super.onDestroy();
-        if (mediaPlayer != null) {
-            mediaPlayer.release();
-            mediaPlayer = null;
+    protected void onStop() {
+        super.onStop();
+        if (MemoryCardFlipApp.from(this).isPerfOverlayEnabled()) {
+            MemoryCardFlipApp.from(this).writePerfReport();
         }
     }
 }
@@ -0,0 +1,314 @@
+package com.example.memorycardflip;
+
+import android.content.Context;
+import android.content.res.AssetFileDescriptor;
+import android.media.AudioAttributes;
+import android.media.AudioFocusRequest;
+import android.media.AudioManager;
+import android.media.MediaPlayer;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+/**
+ * Background music shared by all activities. Tracks are streamed from their
+ * raw resource and prepared asynchronously, switching tracks cross-fades,
+ * and playback follows the sound setting, the app being in the foreground
+ * and audio focus. All methods must be called on the main thread.
+ */
+public class MusicPlayer implements AudioManager.OnAudioFocusChangeListener {
+
+    private static final String TAG = "MusicPlayer";
+
+    public static final float MENU_VOLUME = 1f;
+    public static final float GAME_VOLUME = 0.35f;
+
+    private static final long FADE_MS = 600;
+    private static final long FADE_STEP_MS = 30;
+    private static final float DUCK_FACTOR = 0.2f;
+    // Used for playback and for the audio focus request
+    private static final AudioAttributes MUSIC_ATTRIBUTES = new AudioAttributes.Builder()
+            .setUsage(AudioAttributes.USAGE_GAME)
+            .setContentType(AudioAttributes.CONTENT_TYPE_MUSIC)
+            .build();
+
+    private final Context context;
+    private final AudioManager audioManager;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Runnable fadeStep = this::fadeStep;
+    private AudioFocusRequest focusRequest;
+
+    // Track that should be heard, and the player for it
+    private int wantedResId = 0;
+    private float wantedVolume = 1f;
+    private MediaPlayer current;
+    private int currentResId = 0;
+    private boolean currentPrepared = false;
+    private float currentVolume = 0f;
+
+    // Previous track while it fades out
+    private MediaPlayer fadingOut;
+    private float fadingOutVolume = 0f;
+
+    private boolean enabled = true;
+    private boolean foreground = false;
+    private boolean hasFocus = false;
+    private boolean focusPaused = false;
+    private boolean ducked = false;
+    private boolean fadePosted = false;
+
+    public MusicPlayer(Context context) {
+        this.context = context.getApplicationContext();
+        audioManager = (AudioManager) this.context.getSystemService(Context.AUDIO_SERVICE);
+    }
+
+    /**
+     * Switches to a track, cross-fading from the one playing
+     * @param volume Level relative to the stream volume, 0-1
+     */
+    public void play(int resId, float volume) {
+        wantedResId = resId;
+        wantedVolume = volume;
+        update();
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        update();
+    }
+
+    /**
+     * Called as the first activity starts and the last one stops, so music
+     * carries across activity changes but stops in the background
+     */
+    public void setForeground(boolean foreground) {
+        this.foreground = foreground;
+        update();
+    }
+
+    /**
+     * Releases players that are not heard, e.g. while the app is in the
+     * background; update() prepares the track again when it is wanted.
+     * @return Number of players released
+     */
+    public int releaseIdle() {
+        if (shouldPlay()) {
+            return 0;
+        }
+        int released = (current != null ? 1 : 0) + (fadingOut != null ? 1 : 0);
+        release();
+        currentResId = 0;
+        currentPrepared = false;
+        currentVolume = 0f;
+        return released;
+    }
+
+    public void release() {
+        mainHandler.removeCallbacks(fadeStep);
+        fadePosted = false;
+        releasePlayer(current);
+        releasePlayer(fadingOut);
+        current = null;
+        fadingOut = null;
+        abandonFocus();
+    }
+
+    @Override
+    public void onAudioFocusChange(int focusChange) {
+        switch (focusChange) {
+            case AudioManager.AUDIOFOCUS_GAIN:
+                focusPaused = false;
+                ducked = false;
+                break;
+            case AudioManager.AUDIOFOCUS_LOSS_TRANSIENT_CAN_DUCK:
+                ducked = true;
+                break;
+            case AudioManager.AUDIOFOCUS_LOSS_TRANSIENT:
+                focusPaused = true;
+                break;
+            case AudioManager.AUDIOFOCUS_LOSS:
+                // Another app took over; stay quiet until music is requested again
+                focusPaused = true;
+                hasFocus = false;
+                postFade();
+                return;
+            default:
+                return;
+        }
+        update();
+    }
+
+    private boolean shouldPlay() {
+        return enabled && foreground && wantedResId != 0;
+    }
+
+    private float targetVolume() {
+        if (!shouldPlay() || focusPaused) {
+            return 0f;
+        }
+        return ducked ? wantedVolume * DUCK_FACTOR : wantedVolume;
+    }
+
+    private void update() {
+        if (shouldPlay()) {
+            if (!hasFocus) {
+                focusPaused = !requestFocus();
+                hasFocus = !focusPaused;
+            }
+            if (current == null || currentResId != wantedResId) {
+                switchTrack();
+            } else if (currentPrepared && !current.isPlaying() && targetVolume() > 0f) {
+                current.start();
+            }
+        }
+        postFade();
+    }
+
+    /**
+     * Starts preparing the wanted track; the old one fades out meanwhile
+     */
+    private void switchTrack() {
+        if (fadingOut != null) {
+            releasePlayer(fadingOut);
+        }
+        fadingOut = current;
+        fadingOutVolume = currentVolume;
+        if (fadingOut != null && !fadingOut.isPlaying()) {
+            releasePlayer(fadingOut);
+            fadingOut = null;
+        }
+
+        current = null;
+        currentPrepared = false;
+        currentVolume = 0f;
+        currentResId = wantedResId;
+        try {
+            final MediaPlayer player = new MediaPlayer();
+            player.setAudioAttributes(MUSIC_ATTRIBUTES);
+            // Streams from the APK instead of loading the file into memory
+            try (AssetFileDescriptor afd = context.getResources().openRawResourceFd(currentResId)) {
+                player.setDataSource(afd.getFileDescriptor(), afd.getStartOffset(), afd.getLength());
+            }
+            player.setLooping(true);
+            player.setVolume(0f, 0f);
+            player.setOnPreparedListener(mp -> {
+                if (mp != current) {
+                    return; // Superseded while preparing
+                }
+                currentPrepared = true;
+                update();
+            });
+            player.setOnErrorListener((mp, what, extra) -> {
+                Log.w(TAG, "Playback error " + what + "/" + extra);
+                if (mp == current) {
+                    current = null;
+                    currentResId = 0;
+                }
+                releasePlayer(mp);
+                return true;
+            });
+            current = player;
+            player.prepareAsync();
+        } catch (Exception e) {
+            Log.w(TAG, "Could not prepare music", e);
+            releasePlayer(current);
+            current = null;
+        }
+    }
+
+    private void postFade() {
+        if (!fadePosted) {
+            fadePosted = true;
+            mainHandler.post(fadeStep);
+        }
+    }
+
+    /**
+     * Moves both players' volumes one step towards their targets
+     */
+    private void fadeStep() {
+        fadePosted = false;
+        float step = (float) FADE_STEP_MS / FADE_MS;
+        boolean done = true;
+
+        if (fadingOut != null) {
+            fadingOutVolume = Math.max(0f, fadingOutVolume - step);
+            fadingOut.setVolume(fadingOutVolume, fadingOutVolume);
+            if (fadingOutVolume == 0f) {
+                releasePlayer(fadingOut);
+                fadingOut = null;
+            } else {
+                done = false;
+            }
+        }
+
+        if (current != null && currentPrepared) {
+            float target = targetVolume();
+            if (currentVolume < target) {
+                currentVolume = Math.min(target, currentVolume + step);
+            } else if (currentVolume > target) {
+                currentVolume = Math.max(target, currentVolume - step);
+            }
+            current.setVolume(currentVolume, currentVolume);
+            if (currentVolume > 0f && !current.isPlaying()) {
+                current.start();
+            } else if (currentVolume == 0f && target == 0f && current.isPlaying()) {
+                current.pause();
+            }
+            if (currentVolume != target) {
+                done = false;
+            }
+        }
+
+        if (!done) {
+            fadePosted = true;
+            mainHandler.postDelayed(fadeStep, FADE_STEP_MS);
+        } else if (!shouldPlay()) {
+            abandonFocus();
+        }
+    }
+
+    @SuppressWarnings("deprecation") // The stream type overloads are only called before O
+    private boolean requestFocus() {
+        int result;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            if (focusRequest == null) {
+                focusRequest = new AudioFocusRequest.Builder(AudioManager.AUDIOFOCUS_GAIN)
+                        .setAudioAttributes(MUSIC_ATTRIBUTES)
+                        .setOnAudioFocusChangeListener(this, mainHandler)
+                        .build();
+            }
+            result = audioManager.requestAudioFocus(focusRequest);
+        } else {
+            result = audioManager.requestAudioFocus(this, AudioManager.STREAM_MUSIC, AudioManager.AUDIOFOCUS_GAIN);
+        }
+        return result == AudioManager.AUDIOFOCUS_REQUEST_GRANTED;
+    }
+
+    @SuppressWarnings("deprecation")
+    private void abandonFocus() {
+        if (!hasFocus) {
+            return;
+        }
+        hasFocus = false;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            if (focusRequest != null) {
+                audioManager.abandonAudioFocusRequest(focusRequest);
+            }
+        } else {
+            audioManager.abandonAudioFocus(this);
+        }
+    }
+
+    private static void releasePlayer(MediaPlayer player) {
+        if (player == null) {
+            return;
+        }
+        try {
+            player.release();
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.memorycardflip;
+
+import android.app.ActivityManager;
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.util.Log;
+
+/**
+ * Releases cached faces and idle audio in tiers as the system reports memory
+ * pressure, and decides whether the app runs in its reduced-footprint mode.
+ * Each tier includes the ones below it and logs what every step freed.
+ */
+public class ResourceManager {
+
+    private static final String TAG = "ResourceManager";
+
+    // Devices at or below this heap class get the reduced-footprint mode
+    private static final int LOW_MEMORY_CLASS_MB = 128;
+    private static final float MODERATE_FACE_FRACTION = 0.5f;
+
+    /** Nothing to release */
+    public static final int TIER_NONE = 0;
+    /** Running, memory getting low: halve the per-face cache */
+    public static final int TIER_MODERATE = 1;
+    /** Running critically low or UI hidden: drop per-face bitmaps and idle music */
+    public static final int TIER_CRITICAL = 2;
+    /** In the background: also free the atlas and the sound effect samples */
+    public static final int TIER_BACKGROUND = 3;
+
+    private final FaceCache faceCache;
+    private final MusicPlayer musicPlayer;
+    private final boolean lowRam;
+
+    public ResourceManager(FaceCache faceCache, MusicPlayer musicPlayer, boolean lowRam) {
+        this.faceCache = faceCache;
+        this.musicPlayer = musicPlayer;
+        this.lowRam = lowRam;
+    }
+
+    /**
+     * Low-RAM devices, such as those with 1-2 GB, as reported by the system or
+     * by a small heap class
+     */
+    public static boolean isLowRamDevice(Context context) {
+        ActivityManager activityManager = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+        return activityManager != null
+                && (activityManager.isLowRamDevice() || activityManager.getMemoryClass() <= LOW_MEMORY_CLASS_MB);
+    }
+
+    /**
+     * @return true if caches are sized down and fewer resources are preloaded
+     */
+    public boolean isLowRam() {
+        return lowRam;
+    }
+
+    static int tierFor(int level) {
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_BACKGROUND) {
+            return TIER_BACKGROUND;
+        }
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL) {
+            // Includes TRIM_MEMORY_UI_HIDDEN
+            return TIER_CRITICAL;
+        }
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE) {
+            return TIER_MODERATE;
+        }
+        return TIER_NONE;
+    }
+
+    /**
+     * Called from Application.onTrimMemory() on the main thread
+     * @param soundEffects Loaded sound effects, or null if none were created yet
+     */
+    public void onTrimMemory(int level, SoundEffects soundEffects) {
+        int tier = tierFor(level);
+        if (tier == TIER_NONE) {
+            return;
+        }
+        StringBuilder report = new StringBuilder("Trim level ").append(level).append(", tier ").append(tier);
+
+        long faceBytes = faceCache.trimFaces(tier >= TIER_CRITICAL ? 0f : MODERATE_FACE_FRACTION);
+        report.append(": face cache ").append(faceBytes / 1024).append(" KB");
+
+        if (tier >= TIER_CRITICAL) {
+            int players = musicPlayer.releaseIdle();
+            report.append(", idle music ").append(players).append(" player(s)");
+        }
+
+        if (tier >= TIER_BACKGROUND) {
+            long atlasBytes = faceCache.releaseAtlas();
+            report.append(", atlas ").append(atlasBytes / 1024).append(" KB");
+            int samples = soundEffects != null ? soundEffects.releaseSamples() : 0;
+            report.append(", sound effects ").append(samples).append(" sample(s)");
+        }
+
+        Log.i(TAG, report.toString());
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.memorycardflip;
+
+import android.content.Context;
+import android.media.AudioAttributes;
+import android.media.SoundPool;
+
+/**
+ * Low-latency sound effects backed by a SoundPool. Every effect is decoded to
+ * PCM once when loaded, so play() only hands a buffer to the mixer and the
+ * same effect can overlap itself on quick taps. When the last game screen
+ * is destroyed or memory runs low the samples are released, and
+ * ensureLoaded() loads them again.
+ * The pool is created on a background thread while load callbacks and
+ * play() run on the main thread, so all state is guarded by this object.
+ */
+public class SoundEffects {
+
+    // Effect ids
+    public static final int CLICK = 0;
+    public static final int MATCH = 1;
+    public static final int MISMATCH = 2;
+
+    private static final int MAX_VOICES = 4;
+
+    private final int[] resIds = { R.raw.click, R.raw.match, R.raw.notmatch };
+    private final int[] soundIds = new int[resIds.length];
+    private final boolean[] loaded = new boolean[resIds.length];
+
+    private final Context context;
+    private SoundPool soundPool;
+    private boolean enabled = true;
+
+    public SoundEffects(Context context) {
+        this.context = context.getApplicationContext();
+        synchronized (this) {
+            load();
+        }
+    }
+
+    /**
+     * Called with the lock held, so a sample that finishes loading before its
+     * id is stored waits for it instead of being missed
+     */
+    private void load() {
+        AudioAttributes attributes = new AudioAttributes.Builder()
+                .setUsage(AudioAttributes.USAGE_GAME)
+                .setContentType(AudioAttributes.CONTENT_TYPE_SONIFICATION)
+                .build();
+        SoundPool pool = new SoundPool.Builder()
+                .setMaxStreams(MAX_VOICES)
+                .setAudioAttributes(attributes)
+                .build();
+        soundPool = pool;
+
+        pool.setOnLoadCompleteListener((loadedPool, sampleId, status) -> {
+            synchronized (SoundEffects.this) {
+                // Ignore samples of a pool released meanwhile
+                if (status != 0 || loadedPool != soundPool) {
+                    return;
+                }
+                for (int i = 0; i < soundIds.length; i++) {
+                    if (soundIds[i] == sampleId) {
+                        loaded[i] = true;
+                    }
+                }
+            }
+        });
+
+        // Decoding happens on SoundPool's own thread
+        for (int i = 0; i < resIds.length; i++) {
+            loaded[i] = false;
+            soundIds[i] = pool.load(context, resIds[i], 1);
+        }
+    }
+
+    /**
+     * Loads the samples again if releaseSamples() dropped them
+     */
+    public synchronized void ensureLoaded() {
+        if (soundPool == null) {
+            load();
+        }
+    }
+
+    /**
+     * Frees the decoded samples until the next ensureLoaded()
+     * @return Number of samples released
+     */
+    public synchronized int releaseSamples() {
+        if (soundPool == null) {
+            return 0;
+        }
+        soundPool.release();
+        soundPool = null;
+        clearLoaded();
+        return resIds.length;
+    }
+
+    private void clearLoaded() {
+        for (int i = 0; i < loaded.length; i++) {
+            loaded[i] = false;
+        }
+    }
+
+    public synchronized void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Plays an effect on a free voice, retriggering it if it is already playing.
+     * @param effect One of CLICK, MATCH or MISMATCH
+     */
+    public synchronized void play(int effect) {
+        if (!enabled || soundPool == null || !loaded[effect]) {
+            return;
+        }
+        soundPool.play(soundIds[effect], 1f, 1f, 1, 0, 1f);
+    }
+
+    public synchronized void release() {
+        if (soundPool != null) {
+            soundPool.release();
+            soundPool = null;
+            clearLoaded();
+        }
+    }
+}
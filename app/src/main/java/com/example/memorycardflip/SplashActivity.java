@@ -1,33 +0,0 @@
-package com.example.memorycardflip;
-
-import android.app.Activity;
-import android.content.Intent;
-import android.os.Bundle;
-import android.os.Handler;
-import android.os.Looper;
-import android.widget.ImageView;
-import android.widget.LinearLayout;
-
-public class SplashActivity extends Activity {
-    @Override
-    protected void onCreate(Bundle savedInstanceState) {
-        super.onCreate(savedInstanceState);
-        ImageView imageView = new ImageView(this);
-        imageView.setImageResource(R.drawable.hello);
-        imageView.setLayoutParams(new LinearLayout.LayoutParams(
-                LinearLayout.LayoutParams.MATCH_PARENT,
-                LinearLayout.LayoutParams.MATCH_PARENT
-        ));
-        imageView.setScaleType(ImageView.ScaleType.CENTER_CROP);
-        setContentView(imageView);
-
-        new Handler(Looper.getMainLooper()).postDelayed(new Runnable() {
-            @Override
-            public void run() {
-                startActivity(new Intent(SplashActivity.this, MenuActivity.class));
-                finish();
-            }
-        }, 2000); // 2 seconds
-    }
-}
-
@@ -0,0 +1,73 @@
+package com.example.memorycardflip;
+
+import android.os.Build;
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+
+/**
+ * Records cold-start milestones relative to process start and logs a report
+ * once the first interactive board is shown. Also logs how long activity
+ * recreation after a configuration change takes.
+ */
+public final class StartupTimer {
+
+    private static final String TAG = "StartupTimer";
+
+    private static long processStart = -1;
+    private static long prefsReady = -1;
+    private static long menuShown = -1;
+    private static long boardInteractive = -1;
+
+    private StartupTimer() {
+    }
+
+    static void markProcessStart() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+            processStart = Process.getStartUptimeMillis();
+        } else {
+            processStart = SystemClock.uptimeMillis();
+        }
+    }
+
+    static synchronized void markPrefsReady() {
+        if (prefsReady < 0) {
+            prefsReady = elapsed();
+            Log.i(TAG, "SharedPreferences loaded: " + prefsReady + " ms");
+        }
+    }
+
+    static synchronized void markMenuShown() {
+        if (menuShown < 0) {
+            menuShown = elapsed();
+            Log.i(TAG, "Time to menu: " + menuShown + " ms");
+        }
+    }
+
+    static synchronized void markBoardInteractive() {
+        if (boardInteractive < 0) {
+            boardInteractive = elapsed();
+            Log.i(TAG, "Time to first interactive board: " + boardInteractive + " ms");
+            Log.i(TAG, getReport());
+        }
+    }
+
+    /**
+     * @param createStartNanos System.nanoTime() at the start of onCreate
+     * @param rebound true if the board was rebound from the view model rather than rebuilt
+     */
+    static void reportRecreation(long createStartNanos, boolean rebound) {
+        long micros = (System.nanoTime() - createStartNanos) / 1000;
+        Log.i(TAG, "Recreated to first draw in " + (micros / 1000f) + " ms ("
+                + (rebound ? "rebound held board" : "restored from saved state") + ")");
+    }
+
+    public static synchronized String getReport() {
+        return "Startup report: prefs=" + prefsReady + " ms, menu=" + menuShown
+                + " ms, board=" + boardInteractive + " ms (-1 = not reached)";
+    }
+
+    private static long elapsed() {
+        return processStart < 0 ? -1 : SystemClock.uptimeMillis() - processStart;
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.memorycardflip;
+
+/**
+ * Small bounded FIFO of tapped board positions, backed by an int ring buffer.
+ * Taps made while a pair is being resolved wait here instead of being
+ * dropped; once full, further taps are ignored.
+ */
+public class TapQueue {
+
+    private final int[] positions;
+    private int head = 0;
+    private int size = 0;
+
+    public TapQueue(int capacity) {
+        positions = new int[capacity];
+    }
+
+    /**
+     * @return false if the queue is full or already holds the position
+     */
+    public boolean offer(int position) {
+        if (size == positions.length || contains(position)) {
+            return false;
+        }
+        positions[(head + size) % positions.length] = position;
+        size++;
+        return true;
+    }
+
+    /**
+     * @return The oldest queued position, or -1 if the queue is empty
+     */
+    public int poll() {
+        if (size == 0) {
+            return -1;
+        }
+        int position = positions[head];
+        head = (head + 1) % positions.length;
+        size--;
+        return position;
+    }
+
+    public boolean contains(int position) {
+        for (int i = 0; i < size; i++) {
+            if (positions[(head + i) % positions.length] == position) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        head = 0;
+        size = 0;
+    }
+}
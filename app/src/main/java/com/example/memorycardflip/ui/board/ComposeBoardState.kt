@@ -0,0 +1,143 @@
+package com.example.memorycardflip.ui.board
+
+import androidx.compose.runtime.Immutable
+import androidx.compose.runtime.Stable
+import androidx.compose.runtime.getValue
+import androidx.compose.runtime.mutableIntStateOf
+import androidx.compose.runtime.mutableStateOf
+import androidx.compose.runtime.setValue
+import com.example.memorycardflip.GameEngine
+import com.example.memorycardflip.TapQueue
+
+/**
+ * What one card shows. Equal states skip recomposition.
+ */
+@Immutable
+data class CardUiState(val position: Int, val face: Int, val faceUp: Boolean, val matched: Boolean)
+
+/**
+ * One board position with its own snapshot state, so changing a card only
+ * invalidates the composable that reads it, never the grid around it.
+ */
+@Stable
+class CardCell(val position: Int, initial: CardUiState) {
+    var state by mutableStateOf(initial)
+        internal set
+}
+
+/**
+ * Compose side of a game. The engine stays the source of truth and plays by
+ * the same rules as MainActivity: taps during a pending pair are queued, a
+ * pair resolves once its flip has played and a mismatch stays up a little
+ * longer before turning back. Only the cards and score a move changes are
+ * written back, so a flip recomposes two cards and the score text.
+ */
+@Stable
+class ComposeBoardState(
+    private val engine: GameEngine,
+    val columns: Int,
+    private val listener: Listener
+) {
+
+    interface Listener {
+        /** [result] is one of the GameEngine.FLIP_* constants other than FLIP_IGNORED */
+        fun onFlip(result: Int)
+
+        fun onGameOver()
+    }
+
+    /** Cards in board order; replaced only when a new board is bound */
+    var cells: List<CardCell> by mutableStateOf(emptyList())
+        private set
+
+    var score by mutableIntStateOf(0)
+        private set
+
+    /** Move number of the pair waiting to resolve, 0 if none */
+    var pendingMove by mutableIntStateOf(0)
+        private set
+
+    var gameOver by mutableStateOf(false)
+        private set
+
+    private val tapQueue = TapQueue(TAP_QUEUE_CAPACITY)
+
+    /**
+     * Shows the engine's current board, after dealing or restoring it
+     */
+    fun bind() {
+        tapQueue.clear()
+        cells = List(engine.numCards) { CardCell(it, cardState(it)) }
+        score = engine.score
+        pendingMove = if (engine.isProcessing) engine.moves else 0
+        gameOver = engine.isGameOver
+    }
+
+    fun onCardTapped(position: Int) {
+        if (engine.isProcessing) {
+            tapQueue.offer(position)
+            return
+        }
+        flip(position)
+    }
+
+    /**
+     * How long the pending pair stays up before resolvePair()
+     */
+    fun resolveDelayMillis(): Long {
+        val second = engine.secondPosition
+        return if (second >= 0 && engine.isPendingHide(second)) FLIP_MILLIS + MISMATCH_MILLIS else FLIP_MILLIS
+    }
+
+    /**
+     * Locks in a match or turns a mismatch back, then applies queued taps
+     */
+    fun resolvePair() {
+        val first = engine.firstPosition
+        val second = engine.secondPosition
+        if (!engine.resolve()) {
+            return
+        }
+        refresh(first)
+        refresh(second)
+        score = engine.score
+        pendingMove = 0
+        if (engine.isGameOver) {
+            gameOver = true
+            listener.onGameOver()
+            return
+        }
+        while (!tapQueue.isEmpty && !engine.isProcessing) {
+            flip(tapQueue.poll())
+        }
+    }
+
+    private fun flip(position: Int) {
+        val result = engine.flip(position)
+        if (result == GameEngine.FLIP_IGNORED) {
+            return
+        }
+        refresh(position)
+        // A mismatch penalty applies right away
+        score = engine.score
+        if (engine.isProcessing) {
+            pendingMove = engine.moves
+        }
+        listener.onFlip(result)
+    }
+
+    private fun refresh(position: Int) {
+        cells[position].state = cardState(position)
+    }
+
+    private fun cardState(position: Int) = CardUiState(
+        position, engine.getFace(position),
+        engine.isRevealed(position) || engine.isMatched(position), engine.isMatched(position)
+    )
+
+    companion object {
+        private const val TAP_QUEUE_CAPACITY = 2
+        const val FLIP_MILLIS = 500L
+        const val MISMATCH_MILLIS = 500L
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.memorycardflip.ui.board
+
+import android.os.Bundle
+import android.os.SystemClock
+import androidx.activity.ComponentActivity
+import androidx.activity.compose.setContent
+import androidx.activity.viewModels
+import androidx.compose.material3.Surface
+import com.example.memorycardflip.CardDecks
+import com.example.memorycardflip.GameEngine
+import com.example.memorycardflip.GameResult
+import com.example.memorycardflip.GameViewModel
+import com.example.memorycardflip.MemoryCardFlipApp
+import com.example.memorycardflip.R
+import com.example.memorycardflip.SoundEffects
+import com.example.memorycardflip.ui.theme.MemoryCardFlipTheme
+import java.util.Random
+
+/**
+ * Easy and hard games on the Compose board, as an alternative to the
+ * BoardView screen in MainActivity. Debug builds open it with a long press
+ * on the Easy or Hard button of the menu.
+ */
+class ComposeGameActivity : ComponentActivity(), ComposeBoardState.Listener {
+
+    private val viewModel: GameViewModel by viewModels()
+    private val seedRandom = Random()
+    private lateinit var engine: GameEngine
+    private lateinit var boardState: ComposeBoardState
+    private lateinit var mode: String
+    private var columns = 4
+    private var rows = 3
+    private var isSoundEnabled = true
+    private var soundEffects: SoundEffects? = null
+
+    override fun onCreate(savedInstanceState: Bundle?) {
+        super.onCreate(savedInstanceState)
+        mode = if (intent.getStringExtra("mode") == "hard") "hard" else "easy"
+        isSoundEnabled = intent.getBooleanExtra("soundEnabled", true)
+        val deck = if (mode == "hard") CardDecks.HARD else CardDecks.EASY
+        if (mode == "hard") {
+            columns = 5
+            rows = 4
+        }
+
+        // The view model keeps the engine through rotation, as for MainActivity
+        engine = viewModel.engine
+        if (!viewModel.hasGame()) {
+            dealBoard(deck.size)
+        }
+        viewModel.setBoard(mode, columns, rows)
+
+        soundEffects = MemoryCardFlipApp.from(this).soundEffects.also { it.setEnabled(isSoundEnabled) }
+        boardState = ComposeBoardState(engine, columns, this)
+        boardState.bind()
+
+        val faces = CardFaces(deck, R.drawable.back_card)
+        setContent {
+            MemoryCardFlipTheme(dynamicColor = false) {
+                Surface {
+                    GameScreen(boardState, faces, onPlayAgain = {
+                        dealBoard(deck.size)
+                        boardState.bind()
+                    })
+                }
+            }
+        }
+    }
+
+    override fun onResume() {
+        super.onResume()
+        // Samples freed while the game was in the background are loaded again
+        soundEffects?.ensureLoaded()
+    }
+
+    private fun dealBoard(numFaces: Int) {
+        engine.newGame(columns * rows, numFaces, seedRandom.nextLong())
+        viewModel.gameStartMillis = SystemClock.elapsedRealtime()
+    }
+
+    override fun onFlip(result: Int) {
+        playSound(SoundEffects.CLICK)
+        if (result == GameEngine.FLIP_MATCH) {
+            playSound(SoundEffects.MATCH)
+        } else if (result == GameEngine.FLIP_MISMATCH) {
+            playSound(SoundEffects.MISMATCH)
+        }
+    }
+
+    override fun onGameOver() {
+        // Recorded on the same leaderboard as the BoardView games
+        val duration = SystemClock.elapsedRealtime() - viewModel.gameStartMillis
+        MemoryCardFlipApp.from(this).leaderboard.record(
+            GameResult(
+                mode, columns, rows, engine.score, engine.moves, engine.mismatches,
+                duration, engine.seed, true, System.currentTimeMillis()
+            )
+        )
+    }
+
+    private fun playSound(effect: Int) {
+        if (isSoundEnabled) {
+            soundEffects?.play(effect)
+        }
+    }
+}
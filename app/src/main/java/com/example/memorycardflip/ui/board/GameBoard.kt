@@ -0,0 +1,170 @@
+package com.example.memorycardflip.ui.board
+
+import androidx.annotation.DrawableRes
+import androidx.compose.animation.core.animateFloatAsState
+import androidx.compose.animation.core.tween
+import androidx.compose.foundation.Image
+import androidx.compose.foundation.clickable
+import androidx.compose.foundation.layout.Box
+import androidx.compose.foundation.layout.Column
+import androidx.compose.foundation.layout.aspectRatio
+import androidx.compose.foundation.layout.fillMaxSize
+import androidx.compose.foundation.layout.fillMaxWidth
+import androidx.compose.foundation.layout.padding
+import androidx.compose.foundation.lazy.grid.GridCells
+import androidx.compose.foundation.lazy.grid.LazyVerticalGrid
+import androidx.compose.foundation.lazy.grid.items
+import androidx.compose.material3.AlertDialog
+import androidx.compose.material3.MaterialTheme
+import androidx.compose.material3.Text
+import androidx.compose.material3.TextButton
+import androidx.compose.runtime.Composable
+import androidx.compose.runtime.Immutable
+import androidx.compose.runtime.LaunchedEffect
+import androidx.compose.runtime.remember
+import androidx.compose.ui.Modifier
+import androidx.compose.ui.graphics.graphicsLayer
+import androidx.compose.ui.layout.ContentScale
+import androidx.compose.ui.platform.testTag
+import androidx.compose.ui.res.painterResource
+import androidx.compose.ui.res.stringResource
+import androidx.compose.ui.unit.dp
+import com.example.memorycardflip.R
+import kotlinx.coroutines.delay
+
+private const val CARD_ASPECT = 0.75f
+private const val MATCHED_ALPHA = 0.6f
+
+/**
+ * Drawables of a deck by face index, plus the card back
+ */
+@Immutable
+class CardFaces(private val resIds: IntArray, @DrawableRes val backResId: Int) {
+    @DrawableRes
+    operator fun get(face: Int): Int = resIds[face]
+}
+
+/**
+ * Score, board and game over dialog of a Compose game
+ */
+@Composable
+fun GameScreen(
+    state: ComposeBoardState,
+    faces: CardFaces,
+    onPlayAgain: () -> Unit,
+    modifier: Modifier = Modifier
+) {
+    Column(modifier.fillMaxSize().padding(16.dp)) {
+        ScoreText(state)
+        GameBoard(state, faces, Modifier.fillMaxWidth().weight(1f))
+    }
+    PairResolver(state)
+    GameOverDialog(state, onPlayAgain)
+}
+
+/**
+ * Reads the score in its own scope, so a score change recomposes only this text
+ */
+@Composable
+fun ScoreText(state: ComposeBoardState, modifier: Modifier = Modifier) {
+    val score = state.score
+    TrackRecomposition(SCORE_KEY)
+    Text(
+        text = "Score: $score",
+        style = MaterialTheme.typography.titleLarge,
+        modifier = modifier.padding(bottom = 12.dp).testTag(SCORE_KEY)
+    )
+}
+
+/**
+ * Keyed lazy grid of cards. The cell list only changes with a new board, and
+ * each card reads its own state, so a flip does not recompose the grid.
+ */
+@Composable
+fun GameBoard(state: ComposeBoardState, faces: CardFaces, modifier: Modifier = Modifier) {
+    val onTap = remember(state) { { position: Int -> state.onCardTapped(position) } }
+    LazyVerticalGrid(columns = GridCells.Fixed(state.columns), modifier = modifier) {
+        items(state.cells, key = { it.position }) { cell ->
+            Card(cell, faces, onTap)
+        }
+    }
+}
+
+/**
+ * A card turning about its vertical axis. The rotation is read in the layer
+ * block, so the flip animates without recomposing the card each frame.
+ */
+@Composable
+fun Card(cell: CardCell, faces: CardFaces, onTap: (Int) -> Unit, modifier: Modifier = Modifier) {
+    val card = cell.state
+    TrackRecomposition(CARD_KEY, card.position)
+    val rotation = animateFloatAsState(
+        targetValue = if (card.faceUp) 180f else 0f,
+        animationSpec = tween(ComposeBoardState.FLIP_MILLIS.toInt()),
+        label = "flip"
+    )
+    Box(
+        modifier
+            .aspectRatio(CARD_ASPECT)
+            .padding(4.dp)
+            .testTag(CARD_KEY + card.position)
+            .clickable(enabled = !card.matched) { onTap(card.position) }
+    ) {
+        Image(
+            painter = painterResource(faces.backResId),
+            contentDescription = null,
+            contentScale = ContentScale.Crop,
+            modifier = Modifier.fillMaxSize().graphicsLayer {
+                rotationY = rotation.value
+                alpha = if (rotation.value <= 90f) 1f else 0f
+                cameraDistance = 12f * density
+            }
+        )
+        Image(
+            painter = painterResource(faces[card.face]),
+            contentDescription = null,
+            contentScale = ContentScale.Crop,
+            modifier = Modifier.fillMaxSize().graphicsLayer {
+                rotationY = rotation.value - 180f
+                alpha = when {
+                    rotation.value <= 90f -> 0f
+                    card.matched -> MATCHED_ALPHA
+                    else -> 1f
+                }
+                cameraDistance = 12f * density
+            }
+        )
+    }
+}
+
+/**
+ * Resolves each pending pair after its animation, keyed by move so queued
+ * taps that form a new pair restart the wait
+ */
+@Composable
+private fun PairResolver(state: ComposeBoardState) {
+    val pendingMove = state.pendingMove
+    if (pendingMove != 0) {
+        LaunchedEffect(pendingMove) {
+            delay(state.resolveDelayMillis())
+            state.resolvePair()
+        }
+    }
+}
+
+@Composable
+private fun GameOverDialog(state: ComposeBoardState, onPlayAgain: () -> Unit) {
+    if (!state.gameOver) {
+        return
+    }
+    AlertDialog(
+        onDismissRequest = {},
+        title = { Text(stringResource(R.string.congratulations)) },
+        text = { Text("Final Score: " + state.score) },
+        confirmButton = {
+            TextButton(onClick = onPlayAgain) {
+                Text(stringResource(R.string.play_again))
+            }
+        }
+    )
+}
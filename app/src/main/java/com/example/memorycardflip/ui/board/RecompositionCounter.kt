@@ -0,0 +1,50 @@
+package com.example.memorycardflip.ui.board
+
+import androidx.compose.runtime.Composable
+import androidx.compose.runtime.NonRestartableComposable
+import androidx.compose.runtime.SideEffect
+import androidx.compose.runtime.staticCompositionLocalOf
+
+internal const val SCORE_KEY = "score"
+internal const val CARD_KEY = "card"
+
+/**
+ * Counts compositions of the board's composables by key. Tests provide one
+ * through [LocalRecompositionCounter] to check how much a move recomposes;
+ * without one nothing is counted.
+ */
+class RecompositionCounter {
+
+    private val counts = HashMap<String, Int>()
+
+    fun record(key: String) {
+        counts[key] = (counts[key] ?: 0) + 1
+    }
+
+    fun count(key: String): Int = counts[key] ?: 0
+
+    fun cardCount(position: Int): Int = count(CARD_KEY + position)
+
+    fun scoreCount(): Int = count(SCORE_KEY)
+
+    /** Sum of all card compositions */
+    fun totalCardCount(): Int = counts.entries.filter { it.key.startsWith(CARD_KEY) }.sumOf { it.value }
+
+    fun reset() {
+        counts.clear()
+    }
+}
+
+val LocalRecompositionCounter = staticCompositionLocalOf<RecompositionCounter?> { null }
+
+/**
+ * Records one composition of the calling scope once it is applied
+ */
+@Composable
+@NonRestartableComposable
+internal fun TrackRecomposition(name: String, index: Int = -1) {
+    val counter = LocalRecompositionCounter.current ?: return
+    SideEffect {
+        counter.record(if (index >= 0) name + index else name)
+    }
+}
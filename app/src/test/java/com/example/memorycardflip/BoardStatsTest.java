@@ -0,0 +1,38 @@
+package com.example.memorycardflip;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Unit tests for the leaderboard's in-memory totals, runs on the host JVM.
+ */
+public class BoardStatsTest {
+
+    private static GameResult result(int score, int moves, int mismatches, long duration, boolean cleared) {
+        return new GameResult("speedrun", 5, 4, score, moves, mismatches, duration, 1L, cleared, 0L);
+    }
+
+    @Test
+    public void add_tracksBestScoreTimeAndAccuracy() {
+        BoardStats stats = new BoardStats();
+        stats.add(result(60, 20, 10, 50_000, true));
+        stats.add(result(80, 15, 5, 42_000, true));
+        // Ran out of time: counts for score and accuracy, never for best time
+        stats.add(result(-4, 5, 5, 1_000, false));
+
+        assertEquals(3, stats.getGamesPlayed());
+        assertEquals(80, stats.getBestScore());
+        assertEquals(42_000, stats.getBestTimeMillis());
+        assertEquals(0.5f, stats.getAccuracy(), 1e-6f);
+    }
+
+    @Test
+    public void bestScore_canBeNegative() {
+        BoardStats stats = new BoardStats();
+        assertEquals(0, stats.getBestScore());
+        stats.add(result(-6, 8, 8, 0, false));
+        assertEquals(-6, stats.getBestScore());
+        assertEquals(0, stats.getBestTimeMillis());
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.memorycardflip;
+
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+/**
+ * Unit tests for the photo deck index format, runs on the host JVM.
+ */
+public class DeckIndexTest {
+
+    @Test
+    public void encode_roundTripsEntries() throws IOException {
+        DeckIndex index = new DeckIndex();
+        index.add(new DeckIndex.Entry(7L, "Holiday", 52, 1_700_000_000_000L));
+        index.add(new DeckIndex.Entry(9L, "Pets \u2764", 6, 1_700_000_100_000L));
+
+        DeckIndex decoded = DeckIndex.decode(index.encode());
+
+        assertEquals(2, decoded.getEntries().size());
+        DeckIndex.Entry pets = decoded.find(9L);
+        assertEquals("Pets \u2764", pets.name);
+        assertEquals(6, pets.faceCount);
+        assertEquals(1_700_000_100_000L, pets.createdMillis);
+        assertEquals(52, decoded.find(7L).faceCount);
+    }
+
+    @Test
+    public void add_replacesDeckWithSameId() {
+        DeckIndex index = new DeckIndex();
+        index.add(new DeckIndex.Entry(1L, "Old", 6, 0L));
+        index.add(new DeckIndex.Entry(1L, "New", 8, 0L));
+
+        assertEquals(1, index.getEntries().size());
+        assertEquals("New", index.find(1L).name);
+        index.remove(1L);
+        assertNull(index.find(1L));
+    }
+
+    @Test
+    public void decode_rejectsCorruptData() {
+        DeckIndex index = new DeckIndex();
+        index.add(new DeckIndex.Entry(3L, "Deck", 10, 0L));
+        byte[] data = index.encode();
+        data[5] ^= 0x10;
+        try {
+            DeckIndex.decode(data);
+            fail("Corrupt index was accepted");
+        } catch (IOException expected) {
+            // Checksum catches the flipped bit
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.example.memorycardflip;
+
+import android.content.Intent;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.PointF;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.view.MotionEvent;
+
+import androidx.lifecycle.ViewModelProvider;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.android.controller.ActivityController;
+import org.robolectric.shadows.ShadowMediaPlayer;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.time.Duration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+/**
+ * Plays endless mode through MainActivity for thousands of matches under
+ * Robolectric: taps every pair on the board, steps the main looper frame by
+ * frame through the flip, match pulse and deal, and draws the board on each
+ * frame into FrameStats. Checks that the heap, the allocations per batch of
+ * matches and the per-frame draw cost do not grow over the session, which
+ * EndlessSoakTest cannot see since it only drives the engine.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class EndlessSessionTest {
+
+    private static final long FRAME_MS = 16;
+    private static final long FRAME_NANOS = FRAME_MS * 1_000_000;
+    // Longer than the flip, match pulse and deal of a found pair
+    private static final int FRAMES_PER_MATCH = 60;
+    private static final int WARMUP_MATCHES = 100;
+    private static final int BATCHES = 5;
+    private static final int MATCHES_PER_BATCH = 400;
+    // Generous: only growth with the session length should trip these
+    private static final long MAX_HEAP_GROWTH_BYTES = 8L * 1024 * 1024;
+    private static final double MAX_BATCH_GROWTH = 1.5;
+    private static final float MAX_DRAW_SLOWDOWN = 4f;
+    private static final int MUSIC_DURATION_MS = 60_000;
+
+    private final PointF point = new PointF();
+    private com.sun.management.ThreadMXBean allocations;
+    private BoardView gameGrid;
+    private GameEngine engine;
+    private PairStream pairStream;
+    private Canvas canvas;
+    private FrameStats frameStats;
+
+    @Before
+    public void setUp() {
+        // Music streams from a raw resource; any source plays as a long track
+        ShadowMediaPlayer.setMediaInfoProvider(source -> new ShadowMediaPlayer.MediaInfo(MUSIC_DURATION_MS, 0));
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        allocations = threads instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) threads).isThreadAllocatedMemorySupported()
+                ? (com.sun.management.ThreadMXBean) threads : null;
+    }
+
+    @Test
+    public void thousandsOfMatches_stayFlat() {
+        Intent intent = new Intent(RuntimeEnvironment.getApplication(), MainActivity.class)
+                .putExtra("mode", "endless")
+                .putExtra("soundEnabled", false);
+        ActivityController<MainActivity> controller = Robolectric.buildActivity(MainActivity.class, intent).setup();
+        MainActivity game = controller.get();
+        gameGrid = game.findViewById(R.id.gameGrid);
+        GameViewModel viewModel = new ViewModelProvider(game).get(GameViewModel.class);
+        engine = viewModel.getEngine();
+        pairStream = viewModel.getPairStream();
+        assertTrue("Board was not laid out", gameGrid.getCellSize() > 0);
+        canvas = new Canvas(Bitmap.createBitmap(gameGrid.getWidth(), gameGrid.getHeight(), Bitmap.Config.ARGB_8888));
+
+        frameStats = new FrameStats(FRAMES_PER_MATCH * MATCHES_PER_BATCH, FRAME_NANOS);
+        playMatches(WARMUP_MATCHES);
+        long heapBefore = usedHeap();
+
+        long[] batchBytes = new long[BATCHES];
+        float[] batchDrawMs = new float[BATCHES];
+        for (int batch = 0; batch < BATCHES; batch++) {
+            frameStats = new FrameStats(FRAMES_PER_MATCH * MATCHES_PER_BATCH, FRAME_NANOS);
+            long bytesBefore = allocatedBytes();
+            playMatches(MATCHES_PER_BATCH);
+            batchBytes[batch] = allocatedBytes() - bytesBefore;
+            batchDrawMs[batch] = frameStats.getWindowPercentileMs(95);
+        }
+        long heapGrowth = usedHeap() - heapBefore;
+
+        // Every pair was found at the first try and replaced in place
+        assertFalse(engine.isGameOver());
+        assertEquals(0, engine.getMismatches());
+        assertEquals(0, engine.getPairsFound());
+        assertEquals(WARMUP_MATCHES + BATCHES * MATCHES_PER_BATCH, pairStream.getTaken());
+
+        assertTrue("Heap grew by " + heapGrowth + " bytes", heapGrowth <= MAX_HEAP_GROWTH_BYTES);
+        long lastBytes = batchBytes[BATCHES - 1];
+        assertTrue("Last batch allocated " + lastBytes + " bytes, first " + batchBytes[0],
+                lastBytes <= batchBytes[0] * MAX_BATCH_GROWTH);
+        float lastDrawMs = batchDrawMs[BATCHES - 1];
+        assertTrue("Last batch drew frames in " + lastDrawMs + " ms at p95, first in " + batchDrawMs[0],
+                lastDrawMs <= batchDrawMs[0] * MAX_DRAW_SLOWDOWN);
+
+        controller.pause().stop().destroy();
+    }
+
+    /**
+     * Finds the given number of pairs, each at the first try
+     */
+    private void playMatches(int count) {
+        for (int i = 0; i < count; i++) {
+            int first = faceDownCard(-1);
+            int partner = faceDownCard(first);
+            long dealt = pairStream.getTaken();
+            tap(first);
+            tap(partner);
+            for (int frame = 0; frame < FRAMES_PER_MATCH; frame++) {
+                drawFrame();
+            }
+            assertEquals("Pair " + first + "/" + partner + " was not replaced", dealt + 1, pairStream.getTaken());
+            assertFalse(engine.isMatched(first) || engine.isMatched(partner));
+        }
+    }
+
+    /**
+     * @return The first face-down card, or with first >= 0 the card with its face
+     */
+    private int faceDownCard(int first) {
+        for (int i = 0; i < engine.getNumCards(); i++) {
+            if (i != first && !engine.isMatched(i) && !engine.isRevealed(i)
+                    && (first < 0 || engine.getFace(i) == engine.getFace(first))) {
+                return i;
+            }
+        }
+        throw new AssertionError("No face-down card for " + first);
+    }
+
+    /**
+     * Touches the card's center, as a finger would
+     */
+    private void tap(int position) {
+        gameGrid.getCellCenter(position, point);
+        long downTime = SystemClock.uptimeMillis();
+        MotionEvent down = MotionEvent.obtain(downTime, downTime, MotionEvent.ACTION_DOWN, point.x, point.y, 0);
+        MotionEvent up = MotionEvent.obtain(downTime, downTime + FRAME_MS, MotionEvent.ACTION_UP,
+                point.x, point.y, 0);
+        gameGrid.dispatchTouchEvent(down);
+        gameGrid.dispatchTouchEvent(up);
+        down.recycle();
+        up.recycle();
+        drawFrame();
+    }
+
+    /**
+     * Runs one frame of the main looper and records how long drawing the board took
+     */
+    private void drawFrame() {
+        shadowOf(Looper.getMainLooper()).idleFor(Duration.ofMillis(FRAME_MS));
+        long start = System.nanoTime();
+        gameGrid.draw(canvas);
+        frameStats.addFrame(System.nanoTime() - start);
+    }
+
+    private long allocatedBytes() {
+        return allocations != null ? allocations.getThreadAllocatedBytes(Thread.currentThread().getId()) : 0;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
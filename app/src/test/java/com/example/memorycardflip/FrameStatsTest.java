@@ -0,0 +1,60 @@
+package com.example.memorycardflip;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the frame histogram, runs on the host JVM.
+ */
+public class FrameStatsTest {
+
+    private static final long MS = 1_000_000L;
+
+    @Test
+    public void percentiles_followRecordedFrames() {
+        FrameStats stats = new FrameStats(100, 16 * MS);
+        for (int i = 0; i < 90; i++) {
+            stats.addFrame(8 * MS);
+        }
+        for (int i = 0; i < 10; i++) {
+            stats.addFrame(40 * MS);
+        }
+
+        assertEquals(8.25f, stats.getWindowPercentileMs(50), 0.01f);
+        assertEquals(40.25f, stats.getWindowPercentileMs(95), 0.01f);
+        assertEquals(10, stats.getWindowJankyCount());
+    }
+
+    @Test
+    public void window_evictsOldestFrames() {
+        FrameStats stats = new FrameStats(10, 16 * MS);
+        for (int i = 0; i < 10; i++) {
+            stats.addFrame(50 * MS);
+        }
+        for (int i = 0; i < 10; i++) {
+            stats.addFrame(5 * MS);
+        }
+
+        assertEquals(10, stats.getWindowFrameCount());
+        assertEquals(0, stats.getWindowJankyCount());
+        assertEquals(5.25f, stats.getWindowPercentileMs(99), 0.01f);
+    }
+
+    @Test
+    public void frames_areAttributedToCurrentPhase() {
+        FrameStats stats = new FrameStats(10, 16 * MS);
+        stats.setPhase(FrameStats.PHASE_FLIP);
+        stats.addFrame(20 * MS);
+        stats.setPhase(FrameStats.PHASE_IDLE);
+        stats.addFrame(5 * MS);
+
+        assertEquals(1, stats.getPhaseFrameCount(FrameStats.PHASE_FLIP));
+        assertEquals(1, stats.getPhaseJankyCount(FrameStats.PHASE_FLIP));
+        assertEquals(0, stats.getPhaseJankyCount(FrameStats.PHASE_IDLE));
+
+        String json = stats.toJson(1, 2, "test");
+        assertTrue(json.contains("\"flip\":{\"frames\":1,\"janky\":1"));
+    }
+}
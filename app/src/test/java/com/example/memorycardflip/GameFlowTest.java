@@ -0,0 +1,346 @@
+package com.example.memorycardflip;
+
+import android.content.ComponentCallbacks2;
+import android.content.DialogInterface;
+import android.content.Intent;
+import android.graphics.PointF;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.view.MotionEvent;
+import android.widget.TextView;
+
+import androidx.appcompat.app.AlertDialog;
+import androidx.lifecycle.ViewModelProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.android.controller.ActivityController;
+import org.robolectric.shadows.ShadowDialog;
+import org.robolectric.shadows.ShadowMediaPlayer;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+/**
+ * Plays whole games from the menu under Robolectric: taps the cards of the
+ * board, lets the main looper run the flip, match and mismatch animations,
+ * and checks the score, the stored high score and the release of the music
+ * players. Launch, every flip after the first move and the reset are held
+ * to the budgets in game-budgets.properties; the largest cost measured for
+ * each is written to the file named by the gameBudgets.measuredFile system
+ * property, which the build points at build/reports/game-budgets.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class GameFlowTest {
+
+    // Longer than the flip, match pulse, mismatch shake and music fade
+    private static final long SETTLE_MS = 1_000;
+    private static final long FRAME_MS = 16;
+    private static final long WAIT_TIMEOUT_MS = 5_000;
+    private static final int MUSIC_DURATION_MS = 60_000;
+
+    private final List<ShadowMediaPlayer> mediaPlayers = new ArrayList<>();
+    private final Properties budgets = new Properties();
+    private final Properties measured = new Properties();
+    private final PointF point = new PointF();
+    private com.sun.management.ThreadMXBean allocations;
+    private MemoryCardFlipApp app;
+    private BoardView gameGrid;
+    private GameEngine engine;
+
+    @Before
+    public void setUp() throws IOException {
+        // Music streams from a raw resource; any source plays as a long track
+        ShadowMediaPlayer.setMediaInfoProvider(source -> new ShadowMediaPlayer.MediaInfo(MUSIC_DURATION_MS, 0));
+        ShadowMediaPlayer.setCreateListener((player, shadow) -> mediaPlayers.add(shadow));
+
+        try (InputStream in = getClass().getResourceAsStream("/game-budgets.properties")) {
+            assertNotNull("game-budgets.properties missing", in);
+            budgets.load(in);
+        }
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        allocations = threads instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) threads).isThreadAllocatedMemorySupported()
+                ? (com.sun.management.ThreadMXBean) threads : null;
+        app = (MemoryCardFlipApp) RuntimeEnvironment.getApplication();
+    }
+
+    @After
+    public void writeMeasured() throws IOException {
+        String path = System.getProperty("gameBudgets.measuredFile");
+        if (path == null) {
+            return;
+        }
+        // Both games add to one file, keeping the larger cost of each
+        File file = new File(path);
+        Properties merged = new Properties();
+        if (file.exists()) {
+            try (InputStream in = new FileInputStream(file)) {
+                merged.load(in);
+            }
+        }
+        for (String key : measured.stringPropertyNames()) {
+            recordMax(merged, key, Long.parseLong(measured.getProperty(key)));
+        }
+        file.getParentFile().mkdirs();
+        try (OutputStream out = new FileOutputStream(file)) {
+            merged.store(out, "Largest costs measured by GameFlowTest");
+        }
+    }
+
+    @Test
+    public void easyGame_scoresAndReleasesMusic() throws InterruptedException {
+        playGame(R.id.btn_easy, "easy", 4, 3);
+    }
+
+    @Test
+    public void hardGame_scoresAndReleasesMusic() throws InterruptedException {
+        playGame(R.id.btn_hard, "hard", 5, 4);
+    }
+
+    private void playGame(int buttonId, String mode, int columns, int rows) throws InterruptedException {
+        ActivityController<MenuActivity> menuController = Robolectric.buildActivity(MenuActivity.class).setup();
+        MenuActivity menu = menuController.get();
+        menu.findViewById(buttonId).performClick();
+        Intent intent = shadowOf(menu).getNextStartedActivity();
+        assertNotNull("Menu did not start a game", intent);
+        assertEquals(MainActivity.class.getName(), intent.getComponent().getClassName());
+        assertEquals(mode, intent.getStringExtra("mode"));
+
+        // The game starts before the menu stops, as on a device
+        menuController.pause();
+        ActivityController<MainActivity> gameController = Robolectric.buildActivity(MainActivity.class, intent);
+        measure("launch", gameController::setup);
+        menuController.stop();
+        MainActivity game = gameController.get();
+        gameGrid = game.findViewById(R.id.gameGrid);
+        engine = new ViewModelProvider(game).get(GameViewModel.class).getEngine();
+        int numCards = columns * rows;
+        assertEquals(numCards, engine.getNumCards());
+        assertTrue("Board was not laid out", gameGrid.getCellSize() > 0);
+        settle();
+
+        // One wrong guess, then every pair found at the first try. The first move
+        // loads the classes of the flip path, so only later flips are budgeted.
+        int wrong = findCard(0, false);
+        tap(0, null);
+        tap(wrong, null);
+        settle();
+        assertFalse(engine.isRevealed(0));
+        assertEquals(GameEngine.PENALTY_FOR_MISMATCH, engine.getScore());
+        for (int position = 0; position < numCards; position++) {
+            if (engine.isMatched(position)) {
+                continue;
+            }
+            int partner = findCard(position, true);
+            tap(position, "flip");
+            tap(partner, "flip");
+            settle();
+            assertTrue(engine.isMatched(partner));
+        }
+
+        int expected = numCards / 2 * GameEngine.POINTS_PER_MATCH + GameEngine.PENALTY_FOR_MISMATCH;
+        assertTrue(engine.isGameOver());
+        assertEquals(expected, engine.getScore());
+        assertEquals(String.valueOf(expected), textOf(game, R.id.tvCurrentScore));
+
+        // The result is kept in memory, shown as the high score and stored on disk
+        Leaderboard leaderboard = app.getLeaderboard();
+        waitForLoad(leaderboard);
+        assertEquals(expected, leaderboard.getBestScore(mode, columns, rows));
+        assertEquals(String.valueOf(expected), textOf(game, R.id.tvHighScore));
+        assertStored(leaderboard, mode, columns, rows, expected);
+
+        // OK on the game over dialog deals the next board
+        AlertDialog dialog = (AlertDialog) ShadowDialog.getLatestDialog();
+        assertNotNull("No game over dialog", dialog);
+        assertTrue(dialog.isShowing());
+        measure("reset", () -> dialog.getButton(DialogInterface.BUTTON_POSITIVE).performClick());
+        settle();
+        assertFalse(dialog.isShowing());
+        assertFalse(engine.isGameOver());
+        assertEquals(0, engine.getScore());
+        assertEquals(0, engine.getMoves());
+
+        // Leaving the app fades the music out; hiding the UI releases its players
+        assertFalse("Music was never prepared", mediaPlayers.isEmpty());
+        gameController.pause().stop();
+        settle();
+        assertTrue("More than one music player alive", livePlayers() <= 1);
+        app.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN);
+        assertEquals("Music players not released", 0, livePlayers());
+
+        gameController.destroy();
+        menuController.destroy();
+    }
+
+    /**
+     * Touches the card's center, as a finger would
+     * @param budget Name of the budget the touch is held to, or null for none
+     */
+    private void tap(int position, String budget) {
+        gameGrid.getCellCenter(position, point);
+        long downTime = SystemClock.uptimeMillis();
+        MotionEvent down = MotionEvent.obtain(downTime, downTime, MotionEvent.ACTION_DOWN, point.x, point.y, 0);
+        MotionEvent up = MotionEvent.obtain(downTime, downTime + FRAME_MS, MotionEvent.ACTION_UP,
+                point.x, point.y, 0);
+        Runnable touch = () -> {
+            gameGrid.dispatchTouchEvent(down);
+            gameGrid.dispatchTouchEvent(up);
+        };
+        if (budget != null) {
+            measure(budget, touch);
+        } else {
+            touch.run();
+        }
+        down.recycle();
+        up.recycle();
+        idleFor(FRAME_MS);
+        assertTrue("Tap on card " + position + " was not taken",
+                engine.isRevealed(position) || engine.isMatched(position));
+    }
+
+    /**
+     * @return Another card with the same face as the given one, or with a different face
+     */
+    private int findCard(int position, boolean sameFace) {
+        for (int i = 0; i < engine.getNumCards(); i++) {
+            if (i != position && !engine.isMatched(i)
+                    && (engine.getFace(i) == engine.getFace(position)) == sameFace) {
+                return i;
+            }
+        }
+        throw new AssertionError("No card for " + position);
+    }
+
+    /**
+     * Runs the action on the test thread and fails if it took longer or
+     * allocated more than the budget under the given name, if there is one
+     */
+    private void measure(String name, Runnable action) {
+        long bytesBefore = allocatedBytes();
+        long start = System.nanoTime();
+        action.run();
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        long bytes = allocatedBytes() - bytesBefore;
+        recordMax(measured, name + ".maxMillis", millis);
+        recordMax(measured, name + ".maxBytes", bytes);
+
+        long maxMillis = budget(name + ".maxMillis");
+        long maxBytes = budget(name + ".maxBytes");
+        if (maxMillis >= 0) {
+            assertTrue(name + " took " + millis + " ms, budget " + maxMillis + " ms", millis <= maxMillis);
+        }
+        if (maxBytes >= 0) {
+            assertTrue(name + " allocated " + bytes + " bytes, budget " + maxBytes + " bytes", bytes <= maxBytes);
+        }
+    }
+
+    private static void recordMax(Properties costs, String key, long value) {
+        String previous = costs.getProperty(key);
+        if (previous == null || Long.parseLong(previous) < value) {
+            costs.setProperty(key, Long.toString(value));
+        }
+    }
+
+    /**
+     * @return The budget, or -1 if none has been measured and checked in yet,
+     * in which case the cost is only recorded
+     */
+    private long budget(String key) {
+        String value = budgets.getProperty(key);
+        if (value == null) {
+            System.err.println("GameFlowTest: no budget " + key + " yet, recording only");
+            return -1;
+        }
+        return Long.parseLong(value.trim());
+    }
+
+    private long allocatedBytes() {
+        return allocations != null ? allocations.getThreadAllocatedBytes(Thread.currentThread().getId()) : 0;
+    }
+
+    private int livePlayers() {
+        int live = 0;
+        for (ShadowMediaPlayer player : mediaPlayers) {
+            if (player.getState() != ShadowMediaPlayer.State.END) {
+                live++;
+            }
+        }
+        return live;
+    }
+
+    private void waitForLoad(Leaderboard leaderboard) throws InterruptedException {
+        boolean[] loaded = {false};
+        leaderboard.whenLoaded(() -> loaded[0] = true);
+        waitFor("leaderboard load", () -> loaded[0]);
+    }
+
+    /**
+     * Checks the database through the recording leaderboard, whose queries run
+     * after its inserts, and through a fresh one as after a restart
+     */
+    private void assertStored(Leaderboard leaderboard, String mode, int columns, int rows, int score)
+            throws InterruptedException {
+        List<List<GameResult>> top = new ArrayList<>();
+        leaderboard.topScores(mode, columns, rows, 1, top::add);
+        waitFor("stored game", () -> !top.isEmpty());
+        assertEquals(1, top.get(0).size());
+        assertEquals(score, top.get(0).get(0).score);
+
+        Leaderboard reloaded = new Leaderboard(app);
+        reloaded.load();
+        waitForLoad(reloaded);
+        assertEquals(score, reloaded.getBestScore(mode, columns, rows));
+    }
+
+    /**
+     * Idles the main looper until the condition holds; background threads
+     * such as the leaderboard's post their results to it
+     */
+    private static void waitFor(String what, BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + WAIT_TIMEOUT_MS;
+        while (true) {
+            shadowOf(Looper.getMainLooper()).idle();
+            if (condition.getAsBoolean()) {
+                return;
+            }
+            assertTrue("Timed out waiting for " + what, System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    private static String textOf(MainActivity game, int id) {
+        return ((TextView) game.findViewById(id)).getText().toString();
+    }
+
+    private static void settle() {
+        idleFor(SETTLE_MS);
+    }
+
+    private static void idleFor(long millis) {
+        shadowOf(Looper.getMainLooper()).idleFor(Duration.ofMillis(millis));
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.memorycardflip;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the buffered tap input, runs on the host JVM.
+ */
+public class TapQueueTest {
+
+    @Test
+    public void offer_keepsOrderAndRejectsWhenFull() {
+        TapQueue queue = new TapQueue(2);
+        assertTrue(queue.offer(5));
+        assertTrue(queue.offer(3));
+        assertFalse(queue.offer(7));
+
+        assertEquals(5, queue.poll());
+        assertTrue(queue.offer(7));
+        assertEquals(3, queue.poll());
+        assertEquals(7, queue.poll());
+        assertEquals(-1, queue.poll());
+    }
+
+    @Test
+    public void offer_ignoresRepeatedTapOnSameCard() {
+        TapQueue queue = new TapQueue(2);
+        assertTrue(queue.offer(4));
+        assertFalse(queue.offer(4));
+        assertEquals(1, queue.size());
+
+        queue.clear();
+        assertTrue(queue.isEmpty());
+        assertTrue(queue.offer(4));
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.memorycardflip.ui.board
+
+import androidx.compose.runtime.CompositionLocalProvider
+import androidx.compose.ui.test.junit4.createComposeRule
+import androidx.compose.ui.test.onNodeWithTag
+import androidx.compose.ui.test.performClick
+import com.example.memorycardflip.CardDecks
+import com.example.memorycardflip.GameEngine
+import com.example.memorycardflip.R
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+
+/**
+ * Counts what each move recomposes on the Compose board, so a change that
+ * makes a flip recompose the whole grid fails here. Runs on the host JVM
+ * under Robolectric.
+ */
+@RunWith(RobolectricTestRunner::class)
+class ComposeBoardRecompositionTest {
+
+    @get:Rule
+    val composeRule = createComposeRule()
+
+    private val counter = RecompositionCounter()
+    private val engine = GameEngine()
+    private lateinit var state: ComposeBoardState
+
+    @Before
+    fun setUp() {
+        engine.newGame(NUM_CARDS, CardDecks.HARD.size, SEED)
+        state = ComposeBoardState(engine, COLUMNS, object : ComposeBoardState.Listener {
+            override fun onFlip(result: Int) {}
+            override fun onGameOver() {}
+        })
+        state.bind()
+        composeRule.mainClock.autoAdvance = false
+        composeRule.setContent {
+            CompositionLocalProvider(LocalRecompositionCounter provides counter) {
+                GameScreen(state, CardFaces(CardDecks.HARD, R.drawable.back_card), onPlayAgain = {})
+            }
+        }
+        advance(FRAME_MILLIS)
+        counter.reset()
+    }
+
+    @Test
+    fun flip_recomposesOnlyThatCard() {
+        composeRule.onNodeWithTag(CARD_KEY + 0).performClick()
+        advance(ComposeBoardState.FLIP_MILLIS / 2)
+
+        assertEquals(1, counter.cardCount(0))
+        assertEquals(1, counter.totalCardCount())
+        assertEquals(0, counter.scoreCount())
+    }
+
+    @Test
+    fun mismatch_recomposesTwoCardsAndScore() {
+        val first = 0
+        val second = findPosition { engine.getFace(it) != engine.getFace(first) }
+
+        tap(first)
+        tap(second)
+        advance(ComposeBoardState.FLIP_MILLIS + ComposeBoardState.MISMATCH_MILLIS + SETTLE_MILLIS)
+
+        // Each card turns up and back down; the penalty changes the score once
+        assertFalse(engine.isRevealed(first))
+        assertEquals(2, counter.cardCount(first))
+        assertEquals(2, counter.cardCount(second))
+        assertEquals(4, counter.totalCardCount())
+        assertEquals(1, counter.scoreCount())
+    }
+
+    @Test
+    fun match_recomposesTwoCardsAndScore() {
+        val first = 0
+        val second = findPosition { it != first && engine.getFace(it) == engine.getFace(first) }
+
+        tap(first)
+        tap(second)
+        advance(ComposeBoardState.FLIP_MILLIS + SETTLE_MILLIS)
+
+        // Each card turns up and is then marked matched
+        assertTrue(engine.isMatched(first))
+        assertEquals(2, counter.cardCount(first))
+        assertEquals(2, counter.cardCount(second))
+        assertEquals(4, counter.totalCardCount())
+        assertEquals(1, counter.scoreCount())
+    }
+
+    @Test
+    fun tapDuringPendingPair_appliesAfterResolve() {
+        val first = 0
+        val second = findPosition { engine.getFace(it) != engine.getFace(first) }
+        val third = findPosition { it != first && it != second }
+
+        tap(first)
+        tap(second)
+        tap(third)
+        assertFalse(engine.isRevealed(third))
+
+        advance(ComposeBoardState.FLIP_MILLIS + ComposeBoardState.MISMATCH_MILLIS + SETTLE_MILLIS)
+        assertTrue(engine.isRevealed(third))
+        assertEquals(1, counter.cardCount(third))
+        assertEquals(5, counter.totalCardCount())
+    }
+
+    private fun tap(position: Int) {
+        composeRule.runOnIdle { state.onCardTapped(position) }
+        advance(FRAME_MILLIS)
+    }
+
+    private fun advance(millis: Long) {
+        composeRule.mainClock.advanceTimeBy(millis)
+        composeRule.waitForIdle()
+    }
+
+    private inline fun findPosition(predicate: (Int) -> Boolean): Int {
+        for (position in 0 until NUM_CARDS) {
+            if (predicate(position)) {
+                return position
+            }
+        }
+        throw AssertionError("No such card")
+    }
+
+    private companion object {
+        const val NUM_CARDS = 20
+        const val COLUMNS = 5
+        const val SEED = 42L
+        const val FRAME_MILLIS = 16L
+        // A few frames past a resolve, for the recomposition it triggers
+        const val SETTLE_MILLIS = 100L
+    }
+}
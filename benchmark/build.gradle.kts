@@ -0,0 +1,104 @@
+import groovy.json.JsonSlurper
+
+// JMH benchmarks for the game rules plus a regression gate against baseline.json:
+//   ./gradlew :benchmark:checkBenchmarks          run and compare
+//   ./gradlew :benchmark:updateBenchmarkBaseline  run and record a new baseline
+// A benchmark without a baseline entry fails the check unless
+// -Pbenchmark.allowMissingBaseline=true is passed.
+plugins {
+    java
+    alias(libs.plugins.jmh)
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_11
+    targetCompatibility = JavaVersion.VERSION_11
+}
+
+dependencies {
+    implementation(project(":core"))
+}
+
+val jmhResults = layout.buildDirectory.file("results/jmh/results.json")
+val baselineFile = layout.projectDirectory.file("baseline.json")
+
+jmh {
+    jmhVersion.set(libs.versions.jmh)
+    warmupIterations.set(3)
+    iterations.set(5)
+    fork.set(1)
+    profilers.set(listOf("gc"))
+    resultFormat.set("JSON")
+    resultsFile.set(jmhResults)
+}
+
+/**
+ * Primary score and normalized allocation (bytes/op) per benchmark and parameter set
+ */
+fun readResults(file: File): Map<String, Pair<Double, Double?>> {
+    @Suppress("UNCHECKED_CAST")
+    val runs = JsonSlurper().parse(file) as List<Map<String, Any?>>
+    return runs.associate { run ->
+        val params = (run["params"] as Map<*, *>?)?.toSortedMap(compareBy { it.toString() }) ?: emptyMap<Any, Any>()
+        val primary = run["primaryMetric"] as Map<*, *>
+        val secondary = run["secondaryMetrics"] as Map<*, *>? ?: emptyMap<Any, Any>()
+        val alloc = (secondary["gc.alloc.rate.norm"] ?: secondary["·gc.alloc.rate.norm"]) as Map<*, *>?
+        "${run["benchmark"]}$params" to Pair(
+            (primary["score"] as Number).toDouble(),
+            (alloc?.get("score") as Number?)?.toDouble()
+        )
+    }
+}
+
+tasks.register("checkBenchmarks") {
+    group = "verification"
+    description = "Runs the benchmarks and fails if throughput or allocation regressed past baseline.json."
+    dependsOn("jmh")
+    doLast {
+        // All benchmarks report throughput, so lower is worse
+        val maxThroughputDrop = (findProperty("benchmark.maxThroughputDrop") as String?)?.toDouble() ?: 0.15
+        val maxAllocGrowth = (findProperty("benchmark.maxAllocGrowth") as String?)?.toDouble() ?: 0.10
+        // Absolute slack so zero-allocation benchmarks do not fail on profiler noise
+        val allocSlackBytes = 16.0
+        // Only for recording the first baseline of a new benchmark
+        val allowMissingBaseline = (findProperty("benchmark.allowMissingBaseline") as String?).toBoolean()
+
+        val baseline = readResults(baselineFile.asFile)
+        val current = readResults(jmhResults.get().asFile)
+        val failures = mutableListOf<String>()
+        for ((name, result) in current) {
+            val base = baseline[name]
+            if (base == null) {
+                if (allowMissingBaseline) {
+                    logger.warn("No baseline for $name, run updateBenchmarkBaseline to record one")
+                } else {
+                    failures += "$name: no baseline, run updateBenchmarkBaseline or pass " +
+                        "-Pbenchmark.allowMissingBaseline=true"
+                }
+                continue
+            }
+            val (score, alloc) = result
+            val (baseScore, baseAlloc) = base
+            if (score < baseScore * (1 - maxThroughputDrop)) {
+                failures += "$name: throughput %.1f vs baseline %.1f".format(score, baseScore)
+            }
+            if (alloc != null && baseAlloc != null && alloc > baseAlloc * (1 + maxAllocGrowth) + allocSlackBytes) {
+                failures += "$name: %.1f B/op allocated vs baseline %.1f".format(alloc, baseAlloc)
+            }
+        }
+        if (failures.isNotEmpty()) {
+            throw GradleException("Benchmark regressions:\n  " + failures.joinToString("\n  "))
+        }
+        val compared = current.keys.count { it in baseline }
+        logger.lifecycle("$compared of ${current.size} benchmarks compared, all within limits of the baseline")
+    }
+}
+
+tasks.register("updateBenchmarkBaseline") {
+    group = "verification"
+    description = "Runs the benchmarks and records the results as baseline.json."
+    dependsOn("jmh")
+    doLast {
+        jmhResults.get().asFile.copyTo(baselineFile.asFile, overwrite = true)
+    }
+}
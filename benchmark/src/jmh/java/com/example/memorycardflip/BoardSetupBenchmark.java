@@ -0,0 +1,43 @@
+package com.example.memorycardflip;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Dealing and shuffling a board, as setupGame() does for every new game.
+ * Easy and hard boards plus the largest custom boards.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class BoardSetupBenchmark {
+
+    @Param({"12", "20", "100", "900"})
+    public int numCards;
+
+    private GameEngine engine;
+    private int numFaces;
+
+    @Setup
+    public void setUp() {
+        engine = new GameEngine(new Random(1));
+        numFaces = numCards / 2;
+        // Size the engine's arrays so the benchmark measures a redeal
+        engine.newGame(numCards, numFaces);
+    }
+
+    @Benchmark
+    public int newGame() {
+        engine.newGame(numCards, numFaces);
+        return engine.getFace(0);
+    }
+}
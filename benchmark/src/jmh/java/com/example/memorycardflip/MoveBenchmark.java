@@ -0,0 +1,92 @@
+package com.example.memorycardflip;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One move at a time: two flips and their resolution, plus the per-move
+ * autosave encoding and high score check that follow it in the game.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MoveBenchmark {
+
+    private static final long SEED = 42L;
+
+    @Param({"12", "20"})
+    public int numCards;
+
+    private final GameEngine engine = new GameEngine();
+    // Position of each card's partner, and of a card with a different face
+    private int[] partner;
+    private int mismatchFirst;
+    private int mismatchSecond;
+    private int nextPair = 0;
+    private int highScore = 0;
+
+    @Setup
+    public void setUp() {
+        engine.newGame(numCards, numCards / 2, SEED);
+        partner = new int[numCards];
+        for (int i = 0; i < numCards; i++) {
+            for (int j = 0; j < numCards; j++) {
+                if (i != j && engine.getFace(i) == engine.getFace(j)) {
+                    partner[i] = j;
+                }
+            }
+        }
+        mismatchFirst = 0;
+        mismatchSecond = engine.getFace(1) != engine.getFace(0) ? 1 : 2;
+    }
+
+    /**
+     * A mismatch leaves the board as it was, so this runs in steady state
+     */
+    @Benchmark
+    public int mismatch() {
+        engine.flip(mismatchFirst);
+        engine.flip(mismatchSecond);
+        engine.resolve();
+        return engine.getScore();
+    }
+
+    /**
+     * Matches the next unmatched pair; the same board is redealt once all are
+     * matched, which adds one deal per numCards / 2 matches
+     */
+    @Benchmark
+    public int match() {
+        if (engine.isGameOver()) {
+            engine.newGame(numCards, numCards / 2, SEED);
+            nextPair = 0;
+        }
+        while (engine.isMatched(nextPair)) {
+            nextPair++;
+        }
+        engine.flip(nextPair);
+        engine.flip(partner[nextPair]);
+        engine.resolve();
+        return engine.getScore();
+    }
+
+    /**
+     * What follows each resolved move: the autosave snapshot and high score check
+     */
+    @Benchmark
+    public byte[] autosaveAndHighScore() {
+        int score = engine.getScore();
+        if (score > highScore) {
+            highScore = score;
+        }
+        return GameSnapshot.encode(engine, "hard", 5, numCards / 5);
+    }
+}
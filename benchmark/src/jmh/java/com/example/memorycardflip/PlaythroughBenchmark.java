@@ -0,0 +1,89 @@
+package com.example.memorycardflip;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Whole games from deal to last match: replaying a recorded game with
+ * mistakes, as the replayer does for a corpus, and encoding its recording.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class PlaythroughBenchmark {
+
+    @Param({"12", "20", "100"})
+    public int numCards;
+
+    private GameReplayer replayer;
+    private GameRecording recording;
+
+    @Setup
+    public void setUp() {
+        // Record one game of a player who misses twice before finding each partner
+        Random random = new Random(7);
+        GameEngine engine = new GameEngine(random);
+        engine.newGame(numCards, numCards / 2);
+        recording = new GameRecording(engine.getSeed(), numCards, numCards / 2);
+        long time = 0;
+        while (!engine.isGameOver()) {
+            int first = firstUnmatched(engine);
+            int partner = partnerOf(engine, first);
+            int misses = 0;
+            for (int candidate = 0; candidate < numCards && misses < 2; candidate++) {
+                if (candidate != first && candidate != partner && !engine.isMatched(candidate)) {
+                    time = playMove(engine, first, candidate, time);
+                    misses++;
+                }
+            }
+            time = playMove(engine, first, partner, time);
+        }
+        replayer = new GameReplayer(new GameEngine());
+    }
+
+    @Benchmark
+    public int replayGame() {
+        return replayer.replay(recording);
+    }
+
+    @Benchmark
+    public byte[] encodeRecording() {
+        return recording.encode();
+    }
+
+    private long playMove(GameEngine engine, int first, int second, long time) {
+        engine.flip(first);
+        engine.flip(second);
+        engine.resolve();
+        recording.record(first, time + 400);
+        recording.record(second, time + 800);
+        return time + 800;
+    }
+
+    private static int firstUnmatched(GameEngine engine) {
+        for (int i = 0; i < engine.getNumCards(); i++) {
+            if (!engine.isMatched(i)) {
+                return i;
+            }
+        }
+        throw new IllegalStateException("Board is cleared");
+    }
+
+    private static int partnerOf(GameEngine engine, int position) {
+        for (int i = 0; i < engine.getNumCards(); i++) {
+            if (i != position && !engine.isMatched(i) && engine.getFace(i) == engine.getFace(position)) {
+                return i;
+            }
+        }
+        throw new IllegalStateException("No partner for " + position);
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.memorycardflip;
+
+import java.util.Calendar;
+import java.util.TimeZone;
+
+/**
+ * Seeds for the daily challenge. Every player gets the same board on the
+ * same UTC day, so the seed depends only on the date.
+ */
+public final class DailyChallenge {
+
+    private DailyChallenge() {
+    }
+
+    public static long seedForToday() {
+        Calendar today = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+        return seedFor(today.get(Calendar.YEAR), today.get(Calendar.MONTH) + 1,
+                today.get(Calendar.DAY_OF_MONTH));
+    }
+
+    /**
+     * @param month 1-12
+     */
+    public static long seedFor(int year, int month, int day) {
+        // SplitMix64 finalizer, so neighbouring days get unrelated boards
+        long z = year * 10000L + month * 100L + day + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.memorycardflip;
+
+/**
+ * Pausable stopwatch for timed games. Callers pass the current time from a
+ * monotonic nanosecond source (System.nanoTime() or a vsync timestamp), so
+ * the clock is unaffected by wall-clock changes and by how late a frame is
+ * drawn. Also formats times as MM:SS.mmm without allocating.
+ */
+public class GameClock {
+
+    /** Length of a formatted time, "MM:SS.mmm" */
+    public static final int FORMAT_LENGTH = 9;
+
+    private static final long NANOS_PER_MILLI = 1_000_000L;
+    private static final long MAX_FORMAT_MILLIS = 99 * 60_000L + 59_999L;
+
+    private long accumulatedNanos = 0;
+    private long runningSince = 0;
+    private boolean running = false;
+
+    public void start(long nowNanos) {
+        if (!running) {
+            runningSince = nowNanos;
+            running = true;
+        }
+    }
+
+    public void pause(long nowNanos) {
+        if (running) {
+            accumulatedNanos += Math.max(0, nowNanos - runningSince);
+            running = false;
+        }
+    }
+
+    public void reset() {
+        accumulatedNanos = 0;
+        running = false;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * @return true once the clock has run at all since the last reset
+     */
+    public boolean isStarted() {
+        return running || accumulatedNanos > 0;
+    }
+
+    public long getElapsedMillis(long nowNanos) {
+        long nanos = accumulatedNanos;
+        if (running) {
+            nanos += Math.max(0, nowNanos - runningSince);
+        }
+        return nanos / NANOS_PER_MILLI;
+    }
+
+    /**
+     * Sets a paused clock to a saved time
+     */
+    public void restore(long elapsedMillis) {
+        accumulatedNanos = Math.max(0, elapsedMillis) * NANOS_PER_MILLI;
+        running = false;
+    }
+
+    /**
+     * Writes the time as MM:SS.mmm into out, capped at 99:59.999
+     */
+    public static void format(long millis, char[] out) {
+        long clamped = Math.max(0, Math.min(millis, MAX_FORMAT_MILLIS));
+        int minutes = (int) (clamped / 60_000L);
+        int seconds = (int) (clamped / 1000L % 60);
+        int ms = (int) (clamped % 1000L);
+        out[0] = (char) ('0' + minutes / 10);
+        out[1] = (char) ('0' + minutes % 10);
+        out[2] = ':';
+        out[3] = (char) ('0' + seconds / 10);
+        out[4] = (char) ('0' + seconds % 10);
+        out[5] = '.';
+        out[6] = (char) ('0' + ms / 100);
+        out[7] = (char) ('0' + ms / 10 % 10);
+        out[8] = (char) ('0' + ms % 10);
+    }
+
+    public static String format(long millis) {
+        char[] out = new char[FORMAT_LENGTH];
+        format(millis, out);
+        return new String(out);
+    }
+}
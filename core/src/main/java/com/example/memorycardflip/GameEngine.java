@@ -0,0 +1,377 @@
+package com.example.memorycardflip;
+
+import java.util.BitSet;
+import java.util.Random;
+
+/**
+ * Plain-Java rules for the memory game. The board is kept in primitive form
+ * (face ids in an int[], card state in bitsets) so flips, match resolution
+ * and scoring never allocate. MainActivity only renders what this reports.
+ */
+public class GameEngine {
+
+    public static final int POINTS_PER_MATCH = 10;
+    public static final int PENALTY_FOR_MISMATCH = -2;
+
+    // Results of flip()
+    public static final int FLIP_IGNORED = 0;
+    public static final int FLIP_FIRST = 1;
+    public static final int FLIP_MATCH = 2;
+    public static final int FLIP_MISMATCH = 3;
+
+    private final Random random;
+    private final Random shuffleRandom = new Random();
+    private long seed = 0;
+
+    // Board state
+    private int[] faces = new int[0];
+    private int numCards = 0;
+    private final BitSet revealed = new BitSet();
+    private final BitSet matched = new BitSet();
+    private final BitSet pendingHide = new BitSet();
+    // Cards the player has seen face up since they were dealt
+    private final BitSet seen = new BitSet();
+
+    // Move state
+    private int firstPosition = -1;
+    private int secondPosition = -1;
+    private boolean pendingMatch = false;
+
+    // Scoring
+    private int score = 0;
+    private int pairsFound = 0;
+    private int moves = 0;
+    private int mismatches = 0;
+
+    // Endless mode ends on mismatches instead of a cleared board; 0 for normal games
+    private int mismatchBudget = 0;
+
+    public GameEngine() {
+        this(new Random());
+    }
+
+    public GameEngine(Random random) {
+        this.random = random;
+    }
+
+    /**
+     * Deals a new board shuffled with a fresh seed from this engine's Random.
+     * @see #newGame(int, int, long)
+     */
+    public void newGame(int numCards, int numFaces) {
+        newGame(numCards, numFaces, random.nextLong());
+    }
+
+    /**
+     * Deals a new shuffled board. Pairs cycle through the available faces when
+     * there are more pairs than faces. The same seed always deals the same board.
+     * @param numCards Number of cards on the board (must be even)
+     * @param numFaces Number of distinct faces available
+     * @param seed Seed for the shuffle
+     */
+    public void newGame(int numCards, int numFaces, long seed) {
+        if (numFaces < 1) {
+            throw new IllegalArgumentException("numFaces must be positive: " + numFaces);
+        }
+        checkNumCards(numCards);
+        if (faces.length < numCards) {
+            faces = new int[numCards];
+        }
+        shuffleRandom.setSeed(seed);
+        deal(faces, numCards, numFaces, shuffleRandom);
+        startGame(numCards, seed);
+    }
+
+    /**
+     * Starts a new game on a board dealt ahead of time with deal(), e.g. on a
+     * background thread while the previous game's result is showing.
+     * @param dealtFaces Face id per position, copied
+     * @param seed Seed the board was dealt with
+     */
+    public void newGame(int[] dealtFaces, int numCards, long seed) {
+        checkNumCards(numCards);
+        if (faces.length < numCards) {
+            faces = new int[numCards];
+        }
+        System.arraycopy(dealtFaces, 0, faces, 0, numCards);
+        startGame(numCards, seed);
+    }
+
+    /**
+     * Lays out pairs and shuffles them in place (Fisher-Yates). Does not touch
+     * any engine, so boards can be dealt on any thread.
+     * @param shuffle Random to shuffle with; seed it for a reproducible board
+     */
+    public static void deal(int[] faces, int numCards, int numFaces, Random shuffle) {
+        for (int i = 0; i < numCards; i++) {
+            faces[i] = (i / 2) % numFaces;
+        }
+        for (int i = numCards - 1; i > 0; i--) {
+            int j = shuffle.nextInt(i + 1);
+            int tmp = faces[i];
+            faces[i] = faces[j];
+            faces[j] = tmp;
+        }
+    }
+
+    private static void checkNumCards(int numCards) {
+        if (numCards < 2 || numCards % 2 != 0) {
+            throw new IllegalArgumentException("numCards must be a positive even number: " + numCards);
+        }
+    }
+
+    private void startGame(int numCards, long seed) {
+        this.numCards = numCards;
+        this.seed = seed;
+        revealed.clear();
+        matched.clear();
+        pendingHide.clear();
+        seen.clear();
+        firstPosition = -1;
+        secondPosition = -1;
+        pendingMatch = false;
+        score = 0;
+        pairsFound = 0;
+        moves = 0;
+        mismatches = 0;
+    }
+
+    /**
+     * Restores a board saved between moves.
+     * @param faces Face id per position, copied
+     * @param matched Positions already matched, in pairs
+     * @param firstPosition Revealed card of an unfinished move, or -1
+     */
+    public void restore(int[] faces, BitSet matched, int firstPosition, int score, int moves, int mismatches) {
+        int count = faces.length;
+        if (count < 2 || count % 2 != 0) {
+            throw new IllegalArgumentException("numCards must be a positive even number: " + count);
+        }
+        if (matched.length() > count || matched.cardinality() % 2 != 0) {
+            throw new IllegalArgumentException("Invalid matched set: " + matched);
+        }
+        if (firstPosition >= count || (firstPosition >= 0 && matched.get(firstPosition))) {
+            throw new IllegalArgumentException("Invalid first position: " + firstPosition);
+        }
+
+        if (this.faces.length < count) {
+            this.faces = new int[count];
+        }
+        System.arraycopy(faces, 0, this.faces, 0, count);
+        numCards = count;
+        seed = 0;
+
+        this.matched.clear();
+        this.matched.or(matched);
+        revealed.clear();
+        revealed.or(matched);
+        pendingHide.clear();
+        // What the player saw before the save is unknown
+        seen.clear();
+        seen.set(0, count);
+        this.firstPosition = Math.max(-1, firstPosition);
+        if (this.firstPosition >= 0) {
+            revealed.set(this.firstPosition);
+        }
+        secondPosition = -1;
+        pendingMatch = false;
+        this.score = score;
+        pairsFound = matched.cardinality() / 2;
+        this.moves = moves;
+        this.mismatches = mismatches;
+    }
+
+    /**
+     * Reveals the card at the given position.
+     * @return One of the FLIP_* constants
+     */
+    public int flip(int position) {
+        if (position < 0 || position >= numCards || isProcessing() || isGameOver()
+                || revealed.get(position) || matched.get(position)) {
+            return FLIP_IGNORED;
+        }
+
+        revealed.set(position);
+        seen.set(position);
+
+        if (firstPosition < 0) {
+            firstPosition = position;
+            return FLIP_FIRST;
+        }
+
+        // This is the second card
+        secondPosition = position;
+        moves++;
+        if (faces[firstPosition] == faces[position]) {
+            pendingMatch = true;
+            return FLIP_MATCH;
+        }
+
+        // Mismatch: penalty applies immediately, cards hide on resolve()
+        pendingMatch = false;
+        mismatches++;
+        score += PENALTY_FOR_MISMATCH;
+        pendingHide.set(firstPosition);
+        pendingHide.set(position);
+        return FLIP_MISMATCH;
+    }
+
+    /**
+     * Completes the pending pair: locks in a match or hides a mismatch.
+     * @return true if there was a pending pair to resolve
+     */
+    public boolean resolve() {
+        if (secondPosition < 0) {
+            return false;
+        }
+
+        if (pendingMatch) {
+            matched.set(firstPosition);
+            matched.set(secondPosition);
+            score += POINTS_PER_MATCH;
+            pairsFound++;
+        } else {
+            revealed.clear(firstPosition);
+            revealed.clear(secondPosition);
+            pendingHide.clear(firstPosition);
+            pendingHide.clear(secondPosition);
+        }
+
+        firstPosition = -1;
+        secondPosition = -1;
+        pendingMatch = false;
+        return true;
+    }
+
+    /**
+     * @return true while a revealed pair is waiting for resolve()
+     */
+    public boolean isProcessing() {
+        return secondPosition >= 0;
+    }
+
+    public boolean isGameOver() {
+        if (mismatchBudget > 0) {
+            return mismatches >= mismatchBudget;
+        }
+        return pairsFound >= numCards / 2;
+    }
+
+    /**
+     * Endless mode: the game ends after this many mismatches instead of when
+     * the board is cleared. Kept across new games; 0 turns it off.
+     */
+    public void setMismatchBudget(int mismatchBudget) {
+        this.mismatchBudget = Math.max(0, mismatchBudget);
+    }
+
+    public int getMismatchBudget() {
+        return mismatchBudget;
+    }
+
+    /**
+     * @return Another matched card with the same face, or -1
+     */
+    public int findMatchedPartner(int position) {
+        for (int i = matched.nextSetBit(0); i >= 0 && i < numCards; i = matched.nextSetBit(i + 1)) {
+            if (i != position && faces[i] == faces[position]) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Endless mode: deals a new pair of the face in place of a matched pair.
+     * One card goes into the first freed slot; the other goes into a random
+     * slot among the second freed slot and the face-down cards never seen,
+     * whose face moves into the freed slot. The new pair therefore cannot be
+     * spotted from where it was dealt, and no card the player has seen changes.
+     * @return Position of the new pair's second card; its face changed without being seen
+     */
+    public int replacePair(int first, int second, int face) {
+        if (first == second || first < 0 || second < 0 || first >= numCards || second >= numCards
+                || !matched.get(first) || !matched.get(second) || faces[first] != faces[second]) {
+            throw new IllegalArgumentException("Not a matched pair: " + first + ", " + second);
+        }
+        matched.clear(first);
+        matched.clear(second);
+        revealed.clear(first);
+        revealed.clear(second);
+        seen.clear(first);
+        seen.clear(second);
+        pairsFound--;
+
+        // Unseen cards besides the two freed slots; a card of a pending move has been seen
+        int unseen = numCards - seen.cardinality() - 2;
+        int pick = shuffleRandom.nextInt(unseen + 1);
+        int target = second;
+        if (pick < unseen) {
+            target = -1;
+            for (int i = seen.nextClearBit(0); i < numCards; i = seen.nextClearBit(i + 1)) {
+                if (i != first && i != second && pick-- == 0) {
+                    target = i;
+                    break;
+                }
+            }
+        }
+
+        faces[first] = face;
+        if (target != second) {
+            faces[second] = faces[target];
+        }
+        faces[target] = face;
+        return target;
+    }
+
+    /**
+     * @return Seed the current board was dealt with, 0 for a restored board
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    public int getNumCards() {
+        return numCards;
+    }
+
+    public int getFace(int position) {
+        return faces[position];
+    }
+
+    public boolean isRevealed(int position) {
+        return revealed.get(position);
+    }
+
+    public boolean isMatched(int position) {
+        return matched.get(position);
+    }
+
+    public boolean isPendingHide(int position) {
+        return pendingHide.get(position);
+    }
+
+    public int getFirstPosition() {
+        return firstPosition;
+    }
+
+    public int getSecondPosition() {
+        return secondPosition;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public int getPairsFound() {
+        return pairsFound;
+    }
+
+    public int getMoves() {
+        return moves;
+    }
+
+    public int getMismatches() {
+        return mismatches;
+    }
+}
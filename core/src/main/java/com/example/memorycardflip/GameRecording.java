@@ -0,0 +1,148 @@
+package com.example.memorycardflip;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Seed, board size and the accepted flips of one game, with the time since
+ * the previous flip. Encoded as varints, so a flip usually costs two or
+ * three bytes and a whole easy game fits in well under a hundred.
+ */
+public class GameRecording {
+
+    private static final int MAGIC = 0x52;
+    private static final int VERSION = 1;
+
+    private final long seed;
+    private final int numCards;
+    private final int numFaces;
+    private int[] positions;
+    private int[] deltaMillis;
+    private int count = 0;
+    private long lastFlipMillis = -1;
+
+    public GameRecording(long seed, int numCards, int numFaces) {
+        this(seed, numCards, numFaces, new int[numCards * 2], new int[numCards * 2], 0);
+    }
+
+    private GameRecording(long seed, int numCards, int numFaces, int[] positions, int[] deltaMillis, int count) {
+        this.seed = seed;
+        this.numCards = numCards;
+        this.numFaces = numFaces;
+        this.positions = positions;
+        this.deltaMillis = deltaMillis;
+        this.count = count;
+    }
+
+    /**
+     * Records a flip the engine accepted
+     * @param timeMillis Monotonic time of the flip
+     */
+    public void record(int position, long timeMillis) {
+        if (count == positions.length) {
+            positions = Arrays.copyOf(positions, count * 2);
+            deltaMillis = Arrays.copyOf(deltaMillis, count * 2);
+        }
+        long delta = lastFlipMillis < 0 ? 0 : timeMillis - lastFlipMillis;
+        lastFlipMillis = timeMillis;
+        positions[count] = position;
+        deltaMillis[count] = (int) Math.max(0, Math.min(Integer.MAX_VALUE, delta));
+        count++;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public int getNumCards() {
+        return numCards;
+    }
+
+    public int getNumFaces() {
+        return numFaces;
+    }
+
+    public int getFlipCount() {
+        return count;
+    }
+
+    public int getPosition(int index) {
+        return positions[index];
+    }
+
+    /**
+     * @return Milliseconds between this flip and the previous one, 0 for the first
+     */
+    public int getDeltaMillis(int index) {
+        return deltaMillis[index];
+    }
+
+    public byte[] encode() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(16 + count * 3);
+        out.write(MAGIC);
+        out.write(VERSION);
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            out.write((int) (seed >>> shift));
+        }
+        writeVarint(out, numCards);
+        writeVarint(out, numFaces);
+        writeVarint(out, count);
+        for (int i = 0; i < count; i++) {
+            writeVarint(out, positions[i]);
+            writeVarint(out, deltaMillis[i]);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * @throws IOException If the data is truncated or not a recording
+     */
+    public static GameRecording decode(byte[] data) throws IOException {
+        int[] offset = {0};
+        if (data.length < 10 || (data[0] & 0xFF) != MAGIC || (data[1] & 0xFF) != VERSION) {
+            throw new IOException("Unknown recording format");
+        }
+        offset[0] = 2;
+        long seed = 0;
+        for (int i = 0; i < 8; i++) {
+            seed = (seed << 8) | (data[offset[0]++] & 0xFF);
+        }
+        int numCards = readVarint(data, offset);
+        int numFaces = readVarint(data, offset);
+        int count = readVarint(data, offset);
+        if (count > data.length) {
+            throw new IOException("Flip count out of range: " + count);
+        }
+        int[] positions = new int[Math.max(count, 1)];
+        int[] deltas = new int[Math.max(count, 1)];
+        for (int i = 0; i < count; i++) {
+            positions[i] = readVarint(data, offset);
+            deltas[i] = readVarint(data, offset);
+        }
+        return new GameRecording(seed, numCards, numFaces, positions, deltas, count);
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static int readVarint(byte[] data, int[] offset) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            if (offset[0] >= data.length) {
+                throw new IOException("Recording truncated");
+            }
+            int b = data[offset[0]++] & 0xFF;
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Varint too long");
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.memorycardflip;
+
+/**
+ * Reruns recorded games on a GameEngine without any UI. A pending pair is
+ * resolved right before the next flip, which is what the game does once the
+ * pair's animation ends, so the replay reaches the same score.
+ */
+public class GameReplayer {
+
+    private final GameEngine engine;
+
+    /**
+     * @param engine Engine reused for every replay, so replaying does not allocate
+     */
+    public GameReplayer(GameEngine engine) {
+        this.engine = engine;
+    }
+
+    /**
+     * Deals the recorded board and applies every recorded flip
+     * @return The final score
+     * @throws IllegalStateException If a recorded flip is rejected, i.e. the
+     * recording does not belong to this version of the rules
+     */
+    public int replay(GameRecording recording) {
+        engine.newGame(recording.getNumCards(), recording.getNumFaces(), recording.getSeed());
+        for (int i = 0; i < recording.getFlipCount(); i++) {
+            if (engine.isProcessing()) {
+                engine.resolve();
+            }
+            int position = recording.getPosition(i);
+            if (engine.flip(position) == GameEngine.FLIP_IGNORED) {
+                throw new IllegalStateException("Flip " + i + " at " + position + " was rejected");
+            }
+        }
+        engine.resolve();
+        return engine.getScore();
+    }
+
+    public GameEngine getEngine() {
+        return engine;
+    }
+}
@@ -0,0 +1,188 @@
+package com.example.memorycardflip;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.BitSet;
+import java.util.zip.CRC32;
+
+/**
+ * Compact binary form of a game between moves: mode, board size, face
+ * layout, matched bitset, pending first card and score. An easy board fits
+ * in about fifty bytes, and a CRC trailer rejects torn or corrupt files.
+ */
+public class GameSnapshot {
+
+    private static final int MAGIC = 0x4D43;
+    private static final int VERSION = 1;
+
+    // Game modes, stored as a byte; new modes are only ever appended
+    private static final String[] MODES = {"easy", "hard", "custom", "daily", "photos", "timed", "speedrun", "endless"};
+
+    private final String mode;
+    private final int columns;
+    private final int rows;
+    private final int[] faces;
+    private final BitSet matched;
+    private final int firstPosition;
+    private final int score;
+    private final int moves;
+    private final int mismatches;
+
+    private GameSnapshot(String mode, int columns, int rows, int[] faces, BitSet matched,
+                         int firstPosition, int score, int moves, int mismatches) {
+        this.mode = mode;
+        this.columns = columns;
+        this.rows = rows;
+        this.faces = faces;
+        this.matched = matched;
+        this.firstPosition = firstPosition;
+        this.score = score;
+        this.moves = moves;
+        this.mismatches = mismatches;
+    }
+
+    /**
+     * Encodes the engine's board. A pair still waiting for resolve() is saved
+     * as resolved: a match as matched with its points, a mismatch as hidden
+     * (its penalty is already in the score).
+     */
+    public static byte[] encode(GameEngine engine, String mode, int columns, int rows) {
+        int numCards = engine.getNumCards();
+        int maxFace = 0;
+        BitSet matched = new BitSet(numCards);
+        for (int i = 0; i < numCards; i++) {
+            maxFace = Math.max(maxFace, engine.getFace(i));
+            if (engine.isMatched(i)) {
+                matched.set(i);
+            }
+        }
+        boolean wideFaces = maxFace > 0xFF;
+        int first = engine.isProcessing() ? -1 : engine.getFirstPosition();
+        int score = engine.getScore();
+        int second = engine.getSecondPosition();
+        if (engine.isProcessing() && !engine.isPendingHide(second)) {
+            matched.set(engine.getFirstPosition());
+            matched.set(second);
+            score += GameEngine.POINTS_PER_MATCH;
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(32 + numCards * 2);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeShort(MAGIC);
+            out.writeByte(VERSION);
+            out.writeByte(modeCode(mode));
+            out.writeByte(columns);
+            out.writeByte(rows);
+            out.writeShort(numCards);
+            out.writeBoolean(wideFaces);
+            for (int i = 0; i < numCards; i++) {
+                if (wideFaces) {
+                    out.writeShort(engine.getFace(i));
+                } else {
+                    out.writeByte(engine.getFace(i));
+                }
+            }
+            byte[] matchedBits = matched.toByteArray();
+            out.writeShort(matchedBits.length);
+            out.write(matchedBits);
+            out.writeShort(first);
+            out.writeInt(score);
+            out.writeInt(engine.getMoves());
+            out.writeInt(engine.getMismatches());
+
+            CRC32 crc = new CRC32();
+            crc.update(bytes.toByteArray());
+            out.writeInt((int) crc.getValue());
+        } catch (IOException e) {
+            // ByteArrayOutputStream does not throw
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * @throws IOException If the data is truncated, corrupt or from another version
+     */
+    public static GameSnapshot decode(byte[] data) throws IOException {
+        if (data.length < 4) {
+            throw new IOException("Snapshot too short");
+        }
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, data.length - 4);
+        int storedCrc = ((data[data.length - 4] & 0xFF) << 24) | ((data[data.length - 3] & 0xFF) << 16)
+                | ((data[data.length - 2] & 0xFF) << 8) | (data[data.length - 1] & 0xFF);
+        if ((int) crc.getValue() != storedCrc) {
+            throw new IOException("Snapshot checksum mismatch");
+        }
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data, 0, data.length - 4));
+        if (in.readUnsignedShort() != MAGIC || in.readUnsignedByte() != VERSION) {
+            throw new IOException("Unknown snapshot format");
+        }
+        int modeCode = in.readUnsignedByte();
+        if (modeCode >= MODES.length) {
+            throw new IOException("Unknown mode: " + modeCode);
+        }
+        int columns = in.readUnsignedByte();
+        int rows = in.readUnsignedByte();
+        int numCards = in.readUnsignedShort();
+        boolean wideFaces = in.readBoolean();
+        int[] faces = new int[numCards];
+        for (int i = 0; i < numCards; i++) {
+            faces[i] = wideFaces ? in.readUnsignedShort() : in.readUnsignedByte();
+        }
+        byte[] matchedBits = new byte[in.readUnsignedShort()];
+        in.readFully(matchedBits);
+        int first = in.readShort();
+        int score = in.readInt();
+        int moves = in.readInt();
+        int mismatches = in.readInt();
+
+        return new GameSnapshot(MODES[modeCode], columns, rows, faces, BitSet.valueOf(matchedBits),
+                first, score, moves, mismatches);
+    }
+
+    /**
+     * Puts the saved board back into the engine
+     * @throws IllegalArgumentException If the saved board is inconsistent
+     */
+    public void restoreInto(GameEngine engine) {
+        engine.restore(faces, matched, firstPosition, score, moves, mismatches);
+    }
+
+    public String getMode() {
+        return mode;
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getNumCards() {
+        return faces.length;
+    }
+
+    public int getMaxFace() {
+        int max = 0;
+        for (int face : faces) {
+            max = Math.max(max, face);
+        }
+        return max;
+    }
+
+    private static int modeCode(String mode) {
+        for (int i = 0; i < MODES.length; i++) {
+            if (MODES[i].equals(mode)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Unknown mode: " + mode);
+    }
+}
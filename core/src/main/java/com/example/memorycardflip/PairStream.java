@@ -0,0 +1,64 @@
+package com.example.memorycardflip;
+
+import java.util.Random;
+
+/**
+ * Faces of the pairs endless mode deals next. Upcoming faces are generated
+ * ahead into a fixed ring and refilled as they are taken, so a session of
+ * any length never allocates, and the same seed gives the same sequence.
+ */
+public class PairStream {
+
+    /** Upcoming pairs that are generated ahead */
+    public static final int LOOKAHEAD = 8;
+
+    private final int[] upcoming = new int[LOOKAHEAD];
+    private final Random random = new Random();
+    private int numFaces = 1;
+    private int head = 0;
+    private long taken = 0;
+
+    /**
+     * Starts a new sequence of faces below numFaces
+     */
+    public void reset(int numFaces, long seed) {
+        if (numFaces < 1) {
+            throw new IllegalArgumentException("numFaces must be positive: " + numFaces);
+        }
+        this.numFaces = numFaces;
+        random.setSeed(seed);
+        for (int i = 0; i < LOOKAHEAD; i++) {
+            upcoming[i] = random.nextInt(numFaces);
+        }
+        head = 0;
+        taken = 0;
+    }
+
+    /**
+     * @param index 0 for the next pair, up to LOOKAHEAD - 1
+     */
+    public int peek(int index) {
+        if (index < 0 || index >= LOOKAHEAD) {
+            throw new IndexOutOfBoundsException("index: " + index);
+        }
+        return upcoming[(head + index) % LOOKAHEAD];
+    }
+
+    /**
+     * Takes the next face and generates one more in its slot
+     */
+    public int next() {
+        int face = upcoming[head];
+        upcoming[head] = random.nextInt(numFaces);
+        head = (head + 1) % LOOKAHEAD;
+        taken++;
+        return face;
+    }
+
+    /**
+     * @return Pairs taken since the last reset
+     */
+    public long getTaken() {
+        return taken;
+    }
+}
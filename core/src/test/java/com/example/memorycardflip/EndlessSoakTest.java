@@ -0,0 +1,172 @@
+package com.example.memorycardflip;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Plays endless mode for thousands of matches with a remembering player and
+ * checks that the board stays valid, that matches allocate nothing and that
+ * the work per match does not grow over the session. Runs on the host JVM.
+ */
+public class EndlessSoakTest {
+
+    private static final int NUM_CARDS = 20;
+    private static final int NUM_FACES = 10;
+    private static final int WARMUP_MATCHES = 2_000;
+    private static final int BATCHES = 10;
+    private static final int MATCHES_PER_BATCH = 2_000;
+    // Generous: only growth with the session length should trip it
+    private static final int MAX_BATCH_SLOWDOWN = 10;
+    private static final long MAX_ALLOCATED_BYTES_PER_MATCH = 4;
+
+    private final GameEngine engine = new GameEngine();
+    private final PairStream stream = new PairStream();
+    // Face the player remembers per position, -1 if unknown
+    private final int[] known = new int[NUM_CARDS];
+    private final int[] faceCounts = new int[NUM_FACES];
+
+    @Test
+    public void pairStream_isReproducible() {
+        PairStream a = new PairStream();
+        PairStream b = new PairStream();
+        a.reset(NUM_FACES, 9);
+        b.reset(NUM_FACES, 9);
+        assertEquals(a.peek(PairStream.LOOKAHEAD - 1), b.peek(PairStream.LOOKAHEAD - 1));
+        for (int i = 0; i < 1_000; i++) {
+            int next = a.peek(0);
+            assertEquals(next, a.next());
+            assertEquals(next, b.next());
+        }
+        assertEquals(1_000, a.getTaken());
+    }
+
+    @Test
+    public void thousandsOfMatches_stayFlat() {
+        engine.newGame(NUM_CARDS, NUM_FACES, 1234);
+        stream.reset(NUM_FACES, 5678);
+        Arrays.fill(known, -1);
+
+        playMatches(WARMUP_MATCHES);
+
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        com.sun.management.ThreadMXBean allocations = threads instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) threads).isThreadAllocatedMemorySupported()
+                ? (com.sun.management.ThreadMXBean) threads : null;
+        long thread = Thread.currentThread().getId();
+
+        long[] batchNanos = new long[BATCHES];
+        long allocatedBefore = allocations != null ? allocations.getThreadAllocatedBytes(thread) : 0;
+        for (int batch = 0; batch < BATCHES; batch++) {
+            long start = System.nanoTime();
+            playMatches(MATCHES_PER_BATCH);
+            batchNanos[batch] = System.nanoTime() - start;
+        }
+        long allocated = allocations != null ? allocations.getThreadAllocatedBytes(thread) - allocatedBefore : 0;
+
+        assertEquals(NUM_CARDS, engine.getNumCards());
+        assertFalse(engine.isGameOver());
+        assertBoardHasOnlyPairs();
+        assertEquals(WARMUP_MATCHES + (long) BATCHES * MATCHES_PER_BATCH, stream.getTaken());
+
+        long matches = (long) BATCHES * MATCHES_PER_BATCH;
+        assertTrue("Allocated " + allocated + " bytes in " + matches + " matches",
+                allocated <= matches * MAX_ALLOCATED_BYTES_PER_MATCH);
+
+        long fastest = Long.MAX_VALUE;
+        for (long nanos : batchNanos) {
+            fastest = Math.min(fastest, nanos);
+        }
+        long lastBatch = batchNanos[BATCHES - 1];
+        assertTrue("Last batch took " + lastBatch + " ns, fastest " + fastest + " ns",
+                lastBatch <= fastest * MAX_BATCH_SLOWDOWN);
+    }
+
+    /**
+     * Plays until the given number of pairs has been matched and replaced
+     */
+    private void playMatches(int count) {
+        int matched = 0;
+        while (matched < count) {
+            int first = knownPair();
+            int second;
+            if (first >= 0) {
+                second = knownPartner(first);
+            } else {
+                first = unknownCard(-1);
+                reveal(first);
+                second = knownPartner(first);
+                if (second < 0) {
+                    second = unknownCard(first);
+                }
+            }
+            reveal(first);
+            reveal(second);
+            if (engine.flip(first) == GameEngine.FLIP_IGNORED || engine.flip(second) == GameEngine.FLIP_IGNORED) {
+                throw new AssertionError("Flip ignored at match " + matched);
+            }
+            boolean match = engine.getFace(first) == engine.getFace(second);
+            engine.resolve();
+            if (match) {
+                int target = engine.replacePair(first, second, stream.next());
+                known[first] = -1;
+                known[second] = -1;
+                known[target] = -1;
+                matched++;
+            }
+        }
+    }
+
+    private void reveal(int position) {
+        known[position] = engine.getFace(position);
+    }
+
+    /**
+     * @return A card whose partner is also remembered, or -1
+     */
+    private int knownPair() {
+        for (int i = 0; i < NUM_CARDS; i++) {
+            if (known[i] >= 0 && knownPartner(i) >= 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int knownPartner(int position) {
+        for (int i = 0; i < NUM_CARDS; i++) {
+            if (i != position && known[i] >= 0 && known[i] == known[position]) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return A card the player has not seen, or any other card once all are known
+     */
+    private int unknownCard(int except) {
+        for (int i = 0; i < NUM_CARDS; i++) {
+            if (i != except && known[i] < 0) {
+                return i;
+            }
+        }
+        return except == 0 ? 1 : 0;
+    }
+
+    private void assertBoardHasOnlyPairs() {
+        Arrays.fill(faceCounts, 0);
+        for (int i = 0; i < NUM_CARDS; i++) {
+            faceCounts[engine.getFace(i)]++;
+        }
+        for (int count : faceCounts) {
+            assertEquals(0, count % 2);
+        }
+    }
+}
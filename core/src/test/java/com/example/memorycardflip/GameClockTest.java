@@ -0,0 +1,53 @@
+package com.example.memorycardflip;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the game clock and its time format, runs on the host JVM.
+ */
+public class GameClockTest {
+
+    private static final long MS = 1_000_000L;
+
+    @Test
+    public void pausedTimeIsNotCounted() {
+        GameClock clock = new GameClock();
+        assertFalse(clock.isStarted());
+
+        clock.start(1_000 * MS);
+        assertEquals(250, clock.getElapsedMillis(1_250 * MS));
+        clock.pause(1_500 * MS);
+        assertEquals(500, clock.getElapsedMillis(9_000 * MS));
+
+        clock.start(10_000 * MS);
+        assertTrue(clock.isRunning());
+        assertEquals(700, clock.getElapsedMillis(10_200 * MS));
+
+        clock.reset();
+        assertFalse(clock.isStarted());
+        assertEquals(0, clock.getElapsedMillis(20_000 * MS));
+    }
+
+    @Test
+    public void restore_resumesFromSavedTime() {
+        GameClock clock = new GameClock();
+        clock.restore(42_000);
+        assertTrue(clock.isStarted());
+        assertFalse(clock.isRunning());
+        clock.start(5 * MS);
+        assertEquals(42_010, clock.getElapsedMillis(15 * MS));
+    }
+
+    @Test
+    public void format_padsAndCaps() {
+        assertEquals("00:00.000", GameClock.format(0));
+        assertEquals("01:05.007", GameClock.format(65_007));
+        assertEquals("12:34.560", GameClock.format(754_560));
+        assertEquals("99:59.999", GameClock.format(10_000_000));
+        assertEquals("00:00.000", GameClock.format(-5));
+    }
+}
@@ -0,0 +1,181 @@
+package com.example.memorycardflip;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the plain-Java game rules, runs on the host JVM.
+ */
+public class GameEngineTest {
+
+    private GameEngine engine;
+
+    @Before
+    public void setUp() {
+        engine = new GameEngine(new Random(42));
+        engine.newGame(12, 6);
+    }
+
+    @Test
+    public void newGame_dealsEveryFaceExactlyTwice() {
+        int[] counts = new int[6];
+        for (int i = 0; i < engine.getNumCards(); i++) {
+            counts[engine.getFace(i)]++;
+        }
+        for (int count : counts) {
+            assertEquals(2, count);
+        }
+    }
+
+    @Test
+    public void preparedBoard_matchesSeededDeal() {
+        int[] prepared = new int[20];
+        GameEngine.deal(prepared, 20, 10, new Random(77));
+        engine.newGame(prepared, 20, 77);
+
+        GameEngine seeded = new GameEngine();
+        seeded.newGame(20, 10, 77);
+        for (int i = 0; i < 20; i++) {
+            assertEquals(seeded.getFace(i), engine.getFace(i));
+        }
+        assertEquals(0, engine.getScore());
+        assertFalse(engine.isGameOver());
+    }
+
+    @Test
+    public void match_scoresOnResolve() {
+        int first = 0;
+        int second = partnerOf(first);
+
+        assertEquals(GameEngine.FLIP_FIRST, engine.flip(first));
+        assertEquals(GameEngine.FLIP_MATCH, engine.flip(second));
+        assertTrue(engine.isProcessing());
+        assertEquals(0, engine.getScore());
+
+        assertTrue(engine.resolve());
+        assertTrue(engine.isMatched(first));
+        assertTrue(engine.isMatched(second));
+        assertEquals(GameEngine.POINTS_PER_MATCH, engine.getScore());
+        assertEquals(1, engine.getPairsFound());
+        assertFalse(engine.isProcessing());
+    }
+
+    @Test
+    public void mismatch_penalizesImmediatelyAndHidesOnResolve() {
+        int first = 0;
+        int second = firstNonPartnerOf(first);
+
+        engine.flip(first);
+        assertEquals(GameEngine.FLIP_MISMATCH, engine.flip(second));
+        assertEquals(GameEngine.PENALTY_FOR_MISMATCH, engine.getScore());
+        assertTrue(engine.isPendingHide(first));
+
+        engine.resolve();
+        assertFalse(engine.isRevealed(first));
+        assertFalse(engine.isRevealed(second));
+        assertFalse(engine.isPendingHide(first));
+    }
+
+    @Test
+    public void flip_ignoresSameCardAndTapsWhileProcessing() {
+        int first = 0;
+        int second = firstNonPartnerOf(first);
+
+        engine.flip(first);
+        assertEquals(GameEngine.FLIP_IGNORED, engine.flip(first));
+        engine.flip(second);
+        assertEquals(GameEngine.FLIP_IGNORED, engine.flip(partnerOf(first)));
+    }
+
+    @Test
+    public void perfectGame_endsWithFullScore() {
+        for (int i = 0; i < engine.getNumCards(); i++) {
+            if (engine.isMatched(i)) {
+                continue;
+            }
+            engine.flip(i);
+            engine.flip(partnerOf(i));
+            engine.resolve();
+        }
+        assertTrue(engine.isGameOver());
+        assertEquals(6 * GameEngine.POINTS_PER_MATCH, engine.getScore());
+        assertEquals(6, engine.getMoves());
+    }
+
+    @Test
+    public void replacePair_keepsSeenCardsAndPairsEven() {
+        // A mismatch the player has seen
+        int seenCard = 0;
+        int otherCard = firstNonPartnerOf(seenCard);
+        int seenFace = engine.getFace(seenCard);
+        int otherFace = engine.getFace(otherCard);
+        engine.flip(seenCard);
+        engine.flip(otherCard);
+        engine.resolve();
+
+        int first = 1;
+        while (engine.getFace(first) == seenFace || engine.getFace(first) == otherFace) {
+            first++;
+        }
+        int second = partnerOf(first);
+        engine.flip(first);
+        engine.flip(second);
+        engine.resolve();
+        assertEquals(second, engine.findMatchedPartner(first));
+
+        int target = engine.replacePair(first, second, 5);
+        assertEquals(5, engine.getFace(first));
+        assertEquals(5, engine.getFace(target));
+        assertFalse(engine.isMatched(first));
+        assertFalse(engine.isRevealed(second));
+        assertEquals(0, engine.getPairsFound());
+        assertEquals(seenFace, engine.getFace(seenCard));
+        assertEquals(otherFace, engine.getFace(otherCard));
+
+        int[] counts = new int[6];
+        for (int i = 0; i < engine.getNumCards(); i++) {
+            counts[engine.getFace(i)]++;
+        }
+        for (int count : counts) {
+            assertEquals(0, count % 2);
+        }
+    }
+
+    @Test
+    public void mismatchBudget_endsGameAndIgnoresFlips() {
+        engine.setMismatchBudget(1);
+        engine.newGame(12, 6);
+        int first = 0;
+        int second = firstNonPartnerOf(first);
+
+        engine.flip(first);
+        engine.flip(second);
+        assertTrue(engine.isGameOver());
+        assertTrue(engine.resolve());
+        assertEquals(GameEngine.FLIP_IGNORED, engine.flip(first));
+    }
+
+    private int partnerOf(int position) {
+        for (int i = 0; i < engine.getNumCards(); i++) {
+            if (i != position && engine.getFace(i) == engine.getFace(position)) {
+                return i;
+            }
+        }
+        throw new AssertionError("No partner for " + position);
+    }
+
+    private int firstNonPartnerOf(int position) {
+        for (int i = 0; i < engine.getNumCards(); i++) {
+            if (i != position && engine.getFace(i) != engine.getFace(position)) {
+                return i;
+            }
+        }
+        throw new AssertionError("No mismatch for " + position);
+    }
+}
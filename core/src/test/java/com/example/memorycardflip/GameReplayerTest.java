@@ -0,0 +1,73 @@
+package com.example.memorycardflip;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for seeded deals, recordings and the headless replayer, runs on the host JVM.
+ */
+public class GameReplayerTest {
+
+    @Test
+    public void sameSeed_dealsSameBoard() {
+        GameEngine a = new GameEngine(new Random(1));
+        GameEngine b = new GameEngine(new Random(2));
+        a.newGame(20, 10, 1234L);
+        b.newGame(20, 10, 1234L);
+        for (int i = 0; i < 20; i++) {
+            assertEquals(a.getFace(i), b.getFace(i));
+        }
+        assertEquals(1234L, a.getSeed());
+    }
+
+    @Test
+    public void replay_reproducesRecordedScores() throws IOException {
+        Random player = new Random(99);
+        GameReplayer replayer = new GameReplayer(new GameEngine());
+        for (int game = 0; game < 2000; game++) {
+            GameEngine engine = new GameEngine(new Random(game));
+            engine.newGame(12, 6);
+            GameRecording recording = play(engine, player);
+
+            byte[] data = recording.encode();
+            // Header plus at most three bytes per flip
+            assertTrue("recording too large: " + data.length, data.length <= 13 + recording.getFlipCount() * 3);
+            GameRecording decoded = GameRecording.decode(data);
+            assertEquals(recording.getFlipCount(), decoded.getFlipCount());
+            assertEquals(recording.getDeltaMillis(1), decoded.getDeltaMillis(1));
+            assertEquals(engine.getScore(), replayer.replay(decoded));
+            assertTrue(replayer.getEngine().isGameOver());
+        }
+    }
+
+    @Test
+    public void dailySeed_changesWithTheDate() {
+        assertEquals(DailyChallenge.seedFor(2026, 3, 14), DailyChallenge.seedFor(2026, 3, 14));
+        assertTrue(DailyChallenge.seedFor(2026, 3, 14) != DailyChallenge.seedFor(2026, 3, 15));
+    }
+
+    /**
+     * Plays random flips to the end, resolving like the game does
+     */
+    private static GameRecording play(GameEngine engine, Random player) {
+        GameRecording recording = new GameRecording(engine.getSeed(), engine.getNumCards(), 6);
+        long time = 0;
+        while (!engine.isGameOver()) {
+            if (engine.isProcessing()) {
+                engine.resolve();
+                continue;
+            }
+            int position = player.nextInt(engine.getNumCards());
+            if (engine.flip(position) != GameEngine.FLIP_IGNORED) {
+                time += 200 + player.nextInt(2000);
+                recording.record(position, time);
+            }
+        }
+        return recording;
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.memorycardflip;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Unit tests for the binary autosave format, runs on the host JVM.
+ */
+public class GameSnapshotTest {
+
+    private GameEngine engine;
+
+    @Before
+    public void setUp() {
+        engine = new GameEngine(new Random(7));
+        engine.newGame(12, 6);
+    }
+
+    @Test
+    public void roundTrip_restoresBoardScoreAndPendingCard() throws IOException {
+        int first = 0;
+        int second = partnerOf(first);
+        engine.flip(first);
+        engine.flip(second);
+        engine.resolve();
+        int pending = first == 1 || second == 1 ? 2 : 1;
+        engine.flip(pending);
+
+        byte[] data = GameSnapshot.encode(engine, "hard", 4, 3);
+        assertTrue("snapshot should be small: " + data.length, data.length < 64);
+
+        GameSnapshot snapshot = GameSnapshot.decode(data);
+        assertEquals("hard", snapshot.getMode());
+        assertEquals(4, snapshot.getColumns());
+        assertEquals(3, snapshot.getRows());
+
+        GameEngine restored = new GameEngine(new Random(1));
+        snapshot.restoreInto(restored);
+        assertEquals(engine.getNumCards(), restored.getNumCards());
+        for (int i = 0; i < engine.getNumCards(); i++) {
+            assertEquals(engine.getFace(i), restored.getFace(i));
+            assertEquals(engine.isMatched(i), restored.isMatched(i));
+            assertEquals(engine.isRevealed(i), restored.isRevealed(i));
+        }
+        assertEquals(pending, restored.getFirstPosition());
+        assertEquals(engine.getScore(), restored.getScore());
+        assertEquals(1, restored.getPairsFound());
+        assertEquals(1, restored.getMoves());
+    }
+
+    @Test
+    public void pendingMatch_isSavedAsMatched() throws IOException {
+        int first = 0;
+        int second = partnerOf(first);
+        engine.flip(first);
+        assertEquals(GameEngine.FLIP_MATCH, engine.flip(second));
+
+        // Saved while the match animation runs, before resolve()
+        GameEngine restored = new GameEngine();
+        GameSnapshot.decode(GameSnapshot.encode(engine, "easy", 4, 3)).restoreInto(restored);
+        engine.resolve();
+
+        assertTrue(restored.isMatched(first));
+        assertTrue(restored.isMatched(second));
+        assertFalse(restored.isProcessing());
+        assertEquals(-1, restored.getFirstPosition());
+        assertEquals(engine.getScore(), restored.getScore());
+        assertEquals(1, restored.getPairsFound());
+        assertEquals(1, restored.getMoves());
+    }
+
+    @Test
+    public void pendingMismatch_isSavedHiddenWithPenalty() throws IOException {
+        int first = 0;
+        int second = first == partnerOf(1) ? 2 : 1;
+        engine.flip(first);
+        assertEquals(GameEngine.FLIP_MISMATCH, engine.flip(second));
+
+        GameEngine restored = new GameEngine();
+        GameSnapshot.decode(GameSnapshot.encode(engine, "easy", 4, 3)).restoreInto(restored);
+
+        assertFalse(restored.isRevealed(first));
+        assertFalse(restored.isRevealed(second));
+        assertFalse(restored.isMatched(first));
+        assertEquals(GameEngine.PENALTY_FOR_MISMATCH, restored.getScore());
+        assertEquals(1, restored.getMismatches());
+    }
+
+    @Test
+    public void decode_rejectsCorruptData() {
+        byte[] data = GameSnapshot.encode(engine, "easy", 4, 3);
+        data[10] ^= 0x01;
+        try {
+            GameSnapshot.decode(data);
+            fail("corrupt snapshot was accepted");
+        } catch (IOException expected) {
+            // Checksum mismatch
+        }
+    }
+
+    @Test
+    public void restoredGame_canBeFinished() throws IOException {
+        GameEngine restored = new GameEngine();
+        GameSnapshot.decode(GameSnapshot.encode(engine, "easy", 4, 3)).restoreInto(restored);
+        for (int i = 0; i < restored.getNumCards(); i++) {
+            if (!restored.isMatched(i)) {
+                restored.flip(i);
+                restored.flip(partnerOf(i));
+                restored.resolve();
+            }
+        }
+        assertTrue(restored.isGameOver());
+        assertFalse(restored.isProcessing());
+    }
+
+    private int partnerOf(int position) {
+        for (int i = 0; i < engine.getNumCards(); i++) {
+            if (i != position && engine.getFace(i) == engine.getFace(position)) {
+                return i;
+            }
+        }
+        throw new AssertionError("No partner for " + position);
+    }
+}
@@ -21,4 +21,7 @@ dependencyResolutionManagement {
 
 rootProject.name = "MemoryCardFlip"
 include(":app")
+include(":core")
+include(":simulator")
+include(":benchmark")
  
\ No newline at end of file
@@ -0,0 +1,19 @@
+// Monte Carlo balance simulator for scoring and board sizes, run with
+// ./gradlew :simulator:run --args="<games per configuration>"
+plugins {
+    application
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_11
+    targetCompatibility = JavaVersion.VERSION_11
+}
+
+application {
+    mainClass.set("com.example.memorycardflip.BalanceSimulator")
+}
+
+dependencies {
+    implementation(project(":core"))
+    testImplementation(libs.junit)
+}
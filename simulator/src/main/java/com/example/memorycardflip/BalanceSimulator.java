@@ -0,0 +1,128 @@
+package com.example.memorycardflip;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+/**
+ * Plays many games per board size and player model in parallel and prints
+ * move counts, score distributions and how often high scores are reached.
+ * Work is split into fixed chunks, each with its own engine, player and
+ * Random seeded from the chunk index, so results do not depend on the
+ * number of cores and threads share nothing until the final merge.
+ */
+public class BalanceSimulator {
+
+    private static final int CHUNK_GAMES = 4096;
+    private static final long DEFAULT_GAMES = 1_000_000L;
+    private static final long SEED = 20240601L;
+
+    // Board sizes as the app deals them
+    private static final String[] MODE_NAMES = {"easy", "hard", "custom 6x6"};
+    private static final int[][] MODES = {{12, 6}, {20, 11}, {36, 18}};
+
+    // Penalties tried in the scoring sweep
+    private static final int[] PENALTY_SWEEP = {0, -1, -2, -3, -5};
+
+    /**
+     * Plays the given number of games and merges their results
+     */
+    public static SimulationResult simulate(int numCards, int numFaces, Supplier<PlayerModel> players,
+                                            long games, long seed) {
+        int chunks = (int) ((games + CHUNK_GAMES - 1) / CHUNK_GAMES);
+        return IntStream.range(0, chunks).parallel()
+                .mapToObj(chunk -> playChunk(numCards, numFaces, players.get(),
+                        (int) Math.min(CHUNK_GAMES, games - (long) chunk * CHUNK_GAMES),
+                        seed * 31 + chunk))
+                .reduce(SimulationResult::merge)
+                .orElseGet(() -> new SimulationResult(numCards / 2));
+    }
+
+    static SimulationResult playChunk(int numCards, int numFaces, PlayerModel player, int games, long seed) {
+        Random random = new Random(seed);
+        GameEngine engine = new GameEngine(random);
+        SimulationResult result = new SimulationResult(numCards / 2);
+        // Even a random player finishes long before this
+        int maxFlips = numCards * numCards * 64;
+
+        for (int game = 0; game < games; game++) {
+            engine.newGame(numCards, numFaces);
+            player.startGame(numCards);
+            int turn = 0;
+            while (!engine.isGameOver()) {
+                if (engine.isProcessing()) {
+                    engine.resolve();
+                    continue;
+                }
+                int position = player.nextFlip(engine, turn, random);
+                if (engine.flip(position) == GameEngine.FLIP_IGNORED) {
+                    throw new IllegalStateException("Player flipped an unavailable card: " + position);
+                }
+                player.saw(position, engine.getFace(position), turn);
+                if (++turn > maxFlips) {
+                    throw new IllegalStateException("Game did not finish after " + maxFlips + " flips");
+                }
+            }
+            result.addGame(engine.getMismatches());
+        }
+        return result;
+    }
+
+    public static void main(String[] args) {
+        long games = args.length > 0 ? Long.parseLong(args[0]) : DEFAULT_GAMES;
+        String[] playerNames = {"random", "memory half-life 8", "memory half-life 30", "perfect memory"};
+        List<Supplier<PlayerModel>> players = List.of(
+            RandomPlayer::new,
+            () -> new MemoryPlayer(8),
+            () -> new MemoryPlayer(30),
+            MemoryPlayer::perfect
+        );
+
+        System.out.printf(Locale.US, "%,d games per configuration on %d cores, scoring %+d / %+d%n%n",
+                games, Runtime.getRuntime().availableProcessors(),
+                GameEngine.POINTS_PER_MATCH, GameEngine.PENALTY_FOR_MISMATCH);
+        System.out.printf(Locale.US, "%-11s %-20s %8s %6s %6s %8s %6s %6s %6s %9s %9s %10s%n",
+                "mode", "player", "moves", "p50", "p90", "score", "p10", "p50", "p90",
+                ">=50%max", "perfect", "games/s");
+
+        long sweepStart = System.nanoTime();
+        SimulationResult[][] results = new SimulationResult[MODES.length][players.size()];
+        for (int m = 0; m < MODES.length; m++) {
+            for (int p = 0; p < players.size(); p++) {
+                long start = System.nanoTime();
+                SimulationResult result = simulate(MODES[m][0], MODES[m][1], players.get(p), games, SEED + m);
+                double seconds = (System.nanoTime() - start) / 1e9;
+                results[m][p] = result;
+                printRow(MODE_NAMES[m], playerNames[p], result, games / seconds);
+            }
+        }
+
+        System.out.printf(Locale.US, "%nPenalty sweep for the half-life 30 player (mean score, share reaching 50%% of max)%n");
+        for (int m = 0; m < MODES.length; m++) {
+            SimulationResult result = results[m][2];
+            StringBuilder line = new StringBuilder(String.format(Locale.US, "%-11s", MODE_NAMES[m]));
+            int maxScore = result.getNumPairs() * GameEngine.POINTS_PER_MATCH;
+            for (int penalty : PENALTY_SWEEP) {
+                line.append(String.format(Locale.US, "  %+d: %7.1f %5.1f%%", penalty,
+                        result.getMeanScore(GameEngine.POINTS_PER_MATCH, penalty),
+                        100 * result.getReachability(maxScore / 2, GameEngine.POINTS_PER_MATCH, penalty)));
+            }
+            System.out.println(line);
+        }
+        System.out.printf(Locale.US, "%nSweep finished in %.1f s%n", (System.nanoTime() - sweepStart) / 1e9);
+    }
+
+    private static void printRow(String mode, String player, SimulationResult result, double gamesPerSecond) {
+        int points = GameEngine.POINTS_PER_MATCH;
+        int penalty = GameEngine.PENALTY_FOR_MISMATCH;
+        int maxScore = result.getNumPairs() * points;
+        System.out.printf(Locale.US, "%-11s %-20s %8.2f %6d %6d %8.1f %6d %6d %6d %8.1f%% %8.2f%% %10.0f%n",
+                mode, player, result.getMeanMoves(), result.getMovesPercentile(50), result.getMovesPercentile(90),
+                result.getMeanScore(points, penalty), result.getScorePercentile(10, points, penalty),
+                result.getScorePercentile(50, points, penalty), result.getScorePercentile(90, points, penalty),
+                100 * result.getReachability(maxScore / 2, points, penalty),
+                100.0 * result.getMismatchCount(0) / result.getGames(), gamesPerSecond);
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.memorycardflip;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Remembers the cards it has seen and takes a known pair whenever it can.
+ * Each memory fades with a half-life measured in flips; once a card is
+ * forgotten it stays forgotten until it is seen again. An infinite half-life
+ * is a player with perfect memory.
+ */
+public class MemoryPlayer implements PlayerModel {
+
+    // Chance of still recalling a card by its age in flips; beyond the table it is ~0
+    private static final int MAX_AGE = 1024;
+    private final double[] recallByAge;
+    private int[] knownFace = new int[0];
+    private int[] seenTurn = new int[0];
+    // Age at which the memory was last rolled and survived
+    private int[] checkedAge = new int[0];
+    // Scratch table of a remembered position per face
+    private int[] positionByFace = new int[0];
+
+    /**
+     * @param halfLifeFlips Flips after which a memory is recalled half the time
+     */
+    public MemoryPlayer(double halfLifeFlips) {
+        if (halfLifeFlips == Double.POSITIVE_INFINITY) {
+            recallByAge = null;
+        } else {
+            recallByAge = new double[MAX_AGE];
+            for (int age = 0; age < MAX_AGE; age++) {
+                recallByAge[age] = Math.pow(0.5, age / halfLifeFlips);
+            }
+        }
+    }
+
+    public static MemoryPlayer perfect() {
+        return new MemoryPlayer(Double.POSITIVE_INFINITY);
+    }
+
+    @Override
+    public void startGame(int numCards) {
+        if (knownFace.length != numCards) {
+            knownFace = new int[numCards];
+            seenTurn = new int[numCards];
+            checkedAge = new int[numCards];
+            positionByFace = new int[numCards];
+        }
+        Arrays.fill(knownFace, -1);
+    }
+
+    @Override
+    public int nextFlip(GameEngine engine, int turn, Random random) {
+        int first = engine.getFirstPosition();
+        if (first >= 0) {
+            // Second card: go for the partner if it is remembered
+            int face = engine.getFace(first);
+            for (int position = 0; position < knownFace.length; position++) {
+                if (knownFace[position] == face && RandomPlayer.isFaceDown(engine, position, first)
+                        && recalls(position, turn, random)) {
+                    return position;
+                }
+            }
+            return unknownFaceDown(engine, first, random);
+        }
+
+        // First card: open a remembered pair if there is one
+        Arrays.fill(positionByFace, -1);
+        for (int position = 0; position < knownFace.length; position++) {
+            int face = knownFace[position];
+            if (face < 0 || !RandomPlayer.isFaceDown(engine, position, -1) || !recalls(position, turn, random)) {
+                continue;
+            }
+            if (positionByFace[face] >= 0) {
+                return positionByFace[face];
+            }
+            positionByFace[face] = position;
+        }
+        return unknownFaceDown(engine, -1, random);
+    }
+
+    @Override
+    public void saw(int position, int face, int turn) {
+        knownFace[position] = face;
+        seenTurn[position] = turn;
+        checkedAge[position] = 0;
+    }
+
+    /**
+     * Rolls whether the card at position is still remembered. Only the fading
+     * since the last roll is rolled, so a card checked every flip is still
+     * recalled after one half-life half the time.
+     */
+    boolean recalls(int position, int turn, Random random) {
+        if (knownFace[position] < 0) {
+            return false;
+        }
+        if (recallByAge == null) {
+            return true;
+        }
+        int age = turn - seenTurn[position];
+        int lastAge = checkedAge[position];
+        if (age <= lastAge) {
+            return true;
+        }
+        if (age < MAX_AGE && random.nextDouble() * recallByAge[lastAge] < recallByAge[age]) {
+            checkedAge[position] = age;
+            return true;
+        }
+        knownFace[position] = -1;
+        return false;
+    }
+
+    /**
+     * Prefers cards the player has not seen; falls back to any face-down card
+     */
+    private int unknownFaceDown(GameEngine engine, int exclude, Random random) {
+        int numCards = engine.getNumCards();
+        for (int attempt = 0; attempt < 32; attempt++) {
+            int position = random.nextInt(numCards);
+            if (knownFace[position] < 0 && RandomPlayer.isFaceDown(engine, position, exclude)) {
+                return position;
+            }
+        }
+        int start = random.nextInt(numCards);
+        for (int i = 0; i < numCards; i++) {
+            int position = (start + i) % numCards;
+            if (knownFace[position] < 0 && RandomPlayer.isFaceDown(engine, position, exclude)) {
+                return position;
+            }
+        }
+        return RandomPlayer.randomFaceDown(engine, exclude, random);
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.memorycardflip;
+
+import java.util.Random;
+
+/**
+ * Decides which card a simulated player flips next. An instance is used by
+ * one thread at a time and reused across games.
+ */
+public interface PlayerModel {
+
+    /**
+     * Forgets everything from the previous game
+     */
+    void startGame(int numCards);
+
+    /**
+     * @return Position to flip; must be a face-down card
+     */
+    int nextFlip(GameEngine engine, int turn, Random random);
+
+    /**
+     * Called with every card the player has just seen
+     */
+    void saw(int position, int face, int turn);
+}
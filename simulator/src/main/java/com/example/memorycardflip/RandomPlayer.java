@@ -0,0 +1,50 @@
+package com.example.memorycardflip;
+
+import java.util.Random;
+
+/**
+ * Flips a random face-down card every time and remembers nothing.
+ */
+public class RandomPlayer implements PlayerModel {
+
+    @Override
+    public void startGame(int numCards) {
+    }
+
+    @Override
+    public int nextFlip(GameEngine engine, int turn, Random random) {
+        return randomFaceDown(engine, -1, random);
+    }
+
+    @Override
+    public void saw(int position, int face, int turn) {
+    }
+
+    /**
+     * @param exclude A position not to pick, or -1
+     * @return A uniformly chosen face-down card
+     */
+    static int randomFaceDown(GameEngine engine, int exclude, Random random) {
+        int numCards = engine.getNumCards();
+        // Rejection sampling stays uniform and allocation-free; probe linearly
+        // only if the board is nearly cleared
+        for (int attempt = 0; attempt < 32; attempt++) {
+            int position = random.nextInt(numCards);
+            if (isFaceDown(engine, position, exclude)) {
+                return position;
+            }
+        }
+        int start = random.nextInt(numCards);
+        for (int i = 0; i < numCards; i++) {
+            int position = (start + i) % numCards;
+            if (isFaceDown(engine, position, exclude)) {
+                return position;
+            }
+        }
+        throw new IllegalStateException("No face-down card left");
+    }
+
+    static boolean isFaceDown(GameEngine engine, int position, int exclude) {
+        return position != exclude && !engine.isRevealed(position) && !engine.isMatched(position);
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.memorycardflip;
+
+/**
+ * Histogram of mismatches over many finished games of one board size. A
+ * finished game always has one move per pair plus one per mismatch, so the
+ * histogram gives move counts directly and scores for any scoring constants.
+ */
+public class SimulationResult {
+
+    // Games with more mismatches than this share the last bucket
+    private static final int MAX_MISMATCHES = 4095;
+
+    private final int numPairs;
+    private final long[] mismatchCounts = new long[MAX_MISMATCHES + 1];
+    private long games = 0;
+    private long totalMismatches = 0;
+
+    public SimulationResult(int numPairs) {
+        this.numPairs = numPairs;
+    }
+
+    public void addGame(int mismatches) {
+        mismatchCounts[Math.min(mismatches, MAX_MISMATCHES)]++;
+        totalMismatches += mismatches;
+        games++;
+    }
+
+    /**
+     * Adds other's games into this result
+     * @return this
+     */
+    public SimulationResult merge(SimulationResult other) {
+        for (int i = 0; i <= MAX_MISMATCHES; i++) {
+            mismatchCounts[i] += other.mismatchCounts[i];
+        }
+        totalMismatches += other.totalMismatches;
+        games += other.games;
+        return this;
+    }
+
+    public long getGames() {
+        return games;
+    }
+
+    public int getNumPairs() {
+        return numPairs;
+    }
+
+    public double getMeanMoves() {
+        return games == 0 ? 0 : numPairs + (double) totalMismatches / games;
+    }
+
+    public int getMovesPercentile(double percentile) {
+        return numPairs + mismatchPercentile(percentile);
+    }
+
+    public double getMeanScore(int pointsPerMatch, int penaltyForMismatch) {
+        return games == 0 ? 0
+                : numPairs * pointsPerMatch + (double) totalMismatches / games * penaltyForMismatch;
+    }
+
+    /**
+     * Scores fall as mismatches rise, so a high score percentile is a low mismatch percentile
+     */
+    public int getScorePercentile(double percentile, int pointsPerMatch, int penaltyForMismatch) {
+        double mismatchRank = penaltyForMismatch < 0 ? 100 - percentile : percentile;
+        return score(mismatchPercentile(mismatchRank), pointsPerMatch, penaltyForMismatch);
+    }
+
+    /**
+     * @return Share of games scoring at least the target
+     */
+    public double getReachability(int targetScore, int pointsPerMatch, int penaltyForMismatch) {
+        if (games == 0) {
+            return 0;
+        }
+        long reached = 0;
+        for (int mismatches = 0; mismatches <= MAX_MISMATCHES; mismatches++) {
+            if (score(mismatches, pointsPerMatch, penaltyForMismatch) >= targetScore) {
+                reached += mismatchCounts[mismatches];
+            }
+        }
+        return (double) reached / games;
+    }
+
+    public long getMismatchCount(int mismatches) {
+        return mismatchCounts[mismatches];
+    }
+
+    private int score(int mismatches, int pointsPerMatch, int penaltyForMismatch) {
+        return numPairs * pointsPerMatch + mismatches * penaltyForMismatch;
+    }
+
+    private int mismatchPercentile(double percentile) {
+        if (games == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(games * percentile / 100.0));
+        long seen = 0;
+        for (int i = 0; i <= MAX_MISMATCHES; i++) {
+            seen += mismatchCounts[i];
+            if (seen >= rank) {
+                return i;
+            }
+        }
+        return MAX_MISMATCHES;
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.memorycardflip;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the balance simulator and its player models.
+ */
+public class BalanceSimulatorTest {
+
+    @Test
+    public void simulate_isReproducibleForASeed() {
+        SimulationResult a = BalanceSimulator.simulate(12, 6, () -> new MemoryPlayer(10), 20_000, 5);
+        SimulationResult b = BalanceSimulator.simulate(12, 6, () -> new MemoryPlayer(10), 20_000, 5);
+        assertEquals(20_000, a.getGames());
+        assertEquals(a.getMeanMoves(), b.getMeanMoves(), 0.0);
+        for (int mismatches = 0; mismatches < 50; mismatches++) {
+            assertEquals(a.getMismatchCount(mismatches), b.getMismatchCount(mismatches));
+        }
+    }
+
+    @Test
+    public void betterMemory_needsFewerMoves() {
+        double perfect = BalanceSimulator.simulate(20, 10, MemoryPlayer::perfect, 10_000, 1).getMeanMoves();
+        double fading = BalanceSimulator.simulate(20, 10, () -> new MemoryPlayer(4), 10_000, 1).getMeanMoves();
+        double random = BalanceSimulator.simulate(20, 10, RandomPlayer::new, 10_000, 1).getMeanMoves();
+        assertTrue(perfect + " < " + fading, perfect < fading);
+        assertTrue(fading + " < " + random, fading < random);
+        // A perfect memory needs at most one miss per pair
+        assertTrue(perfect <= 20);
+    }
+
+    @Test
+    public void memory_fadesAtItsHalfLife() {
+        // Checked on every flip, a card is still recalled after one half-life half the time
+        Random random = new Random(3);
+        MemoryPlayer player = new MemoryPlayer(8);
+        int trials = 20_000;
+        int recalled = 0;
+        for (int trial = 0; trial < trials; trial++) {
+            player.startGame(2);
+            player.saw(0, 0, 0);
+            boolean remembered = true;
+            for (int turn = 1; turn <= 8 && remembered; turn++) {
+                remembered = player.recalls(0, turn, random);
+            }
+            if (remembered) {
+                recalled++;
+            }
+        }
+        assertEquals(0.5, recalled / (double) trials, 0.02);
+    }
+
+    @Test
+    public void scores_followFromMismatches() {
+        SimulationResult result = new SimulationResult(6);
+        result.addGame(0);
+        result.addGame(4);
+        assertEquals(56.0, result.getMeanScore(10, -2), 0.0);
+        assertEquals(8.0, result.getMeanMoves(), 0.0);
+        assertEquals(60, result.getScorePercentile(90, 10, -2));
+        assertEquals(0.5, result.getReachability(60, 10, -2), 0.0);
+        assertEquals(1.0, result.getReachability(52, 10, -2), 0.0);
+    }
+}